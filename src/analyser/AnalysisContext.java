@@ -0,0 +1,101 @@
+package analyser;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.util.ArrayList;
+import dataStructures.DecomposedWord;
+import dataStructures.TokenisedSentence;
+
+/*
+ * Scratch space used while analysing sentences, reused from one sentence to the next so that
+ * checking a token that doesn't match anything allocates nothing. Each thread has its own.
+ */
+public final class AnalysisContext
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final ThreadLocal<AnalysisContext> CONTEXTS = new ThreadLocal<AnalysisContext>()
+	{
+		protected AnalysisContext initialValue()
+		{
+			return new AnalysisContext();
+		}
+	};
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// The context of the calling thread.
+	public static final AnalysisContext get()
+	{
+		return CONTEXTS.get();
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	// The sentence being analysed.
+	public final TokenisedSentence tokenisedSentence;
+	
+	// The complexity words found in the sentence so far.
+	public final ArrayList<DecomposedWord> complexityMatches;
+	
+	// The complexity words of the sentence sorted into low and high complexity.
+	public final ArrayList<DecomposedWord> lcList;
+	public final ArrayList<DecomposedWord> hcList;
+	
+	// Lengths of the pre- and postfixes integrated into the current token.
+	private int[] prefixLengths;
+	private int[] postfixLengths;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	private AnalysisContext()
+	{
+		tokenisedSentence = new TokenisedSentence();
+		complexityMatches = new ArrayList<DecomposedWord>();
+		lcList = new ArrayList<DecomposedWord>();
+		hcList = new ArrayList<DecomposedWord>();
+		prefixLengths = new int[0];
+		postfixLengths = new int[0];
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Buffers for the affix lengths of a token. Their previous content is lost.
+	public final int[] getPrefixLengths(int capacity)
+	{
+		if(prefixLengths.length < capacity)
+			prefixLengths = new int[capacity];
+		
+		return prefixLengths;
+	}
+	
+	public final int[] getPostfixLengths(int capacity)
+	{
+		if(postfixLengths.length < capacity)
+			postfixLengths = new int[capacity];
+		
+		return postfixLengths;
+	}
+}
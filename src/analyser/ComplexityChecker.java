@@ -22,6 +22,9 @@ package analyser;
 import java.util.ArrayList;
 import utils.UList;
 import dataStructures.DecomposedWord;
+import dataStructures.PerfectHashTable;
+import dataStructures.StringTree;
+import dataStructures.TokenisedSentence;
 
 public final class ComplexityChecker
 {
@@ -49,10 +52,11 @@ public final class ComplexityChecker
 	// ================================================================
 	// ======================== Public Methods ========================
 	// ================================================================
-	public final DecomposedWord check(String[] tokenisedSentence, int i)
+	public final DecomposedWord check(TokenisedSentence tokenisedSentence, int i,
+		AnalysisContext context)
 	{
 		// See if a complexity word is identified.
-		DecomposedWord complexityWord = checkForComplexityWord(tokenisedSentence, i);
+		DecomposedWord complexityWord = checkForComplexityWord(tokenisedSentence, i, context);
 		
 		// If none was identified return.
 		if(complexityWord == null)
@@ -83,15 +87,19 @@ public final class ComplexityChecker
 		// The word is not a superlative. Examine its stem and consider pre- and postfixes.
 		return getPrefixComplexity(complexityWord.prefix)
 			* getPostfixComplexity(complexityWord.postfix)
-			* getStemComplexity(complexityWord.stemWords)
+			* getStemComplexity(complexityWord)
 			* getNegationSeqComplexity(complexityWord.trailingNegationVerbs);
 	}
 	
 	// ================================================================
 	// ======================= Private Methods ========================
 	// ================================================================
-	private final ArrayList<String> checkForTrailingNegationVerbSeq(String[] tokenisedSentence,
-		int indexAfterComplexityWord)
+	// Note: Pre- and postfixes are cut off by narrowing the token within the tokenised sentence
+	// (rather than by creating substrings). Every method below puts the token back the way it
+	// found it before returning. Strings are only created for the parts of an actual match.
+	
+	private final ArrayList<String> checkForTrailingNegationVerbSeq(
+		TokenisedSentence tokenisedSentence, int indexAfterComplexityWord)
 	{
 		// Get the length of the longest sequence of negating verbs you can find.
 		int matchLength = negatingVerbs_nrMatchingWords(tokenisedSentence, indexAfterComplexityWord);
@@ -104,81 +112,92 @@ public final class ComplexityChecker
 		return collectMatchingWords(tokenisedSentence, indexAfterComplexityWord, matchLength);
 	}
 	
-	private final DecomposedWord checkForComplexityWord(String[] tokenisedSentence, int i)
+	private final DecomposedWord checkForComplexityWord(TokenisedSentence tokenisedSentence, int i,
+		AnalysisContext context)
 	{
-		int matchLength = complexity_nrMatchingWords(tokenisedSentence, i);
+		int match = complexity_findMatch(tokenisedSentence, i);
+		int matchLength = StringTree.getMatchLength(match);
 		
 		// Case: Direct multi-word match.
 		if(matchLength > 1)
-			return directMultiWordMatch(tokenisedSentence, i, matchLength);
+			return directMultiWordMatch(tokenisedSentence, i, match);
 		
 		// Case: Direct single-word match.
 		if(matchLength == 1)
-			return directSingleWordMatch(tokenisedSentence, i);
+			return directSingleWordMatch(tokenisedSentence, i, match);
 		
 		// Case: No direct match.
-		return noDirectMatch(tokenisedSentence, i);
+		return noDirectMatch(tokenisedSentence, i, context);
 	}
 	
-	private final DecomposedWord directMultiWordMatch(String[] tokenisedSentence, int i,
-		int matchLength)
+	private final DecomposedWord directMultiWordMatch(TokenisedSentence tokenisedSentence, int i,
+		int match)
 	{
+		int matchLength = StringTree.getMatchLength(match);
+		
 		// No prefix allowed, no postfix allowed.
 		// The stem is the concatenation of all words in the matching sequence.
 		DecomposedWord result = new DecomposedWord(null,
 			collectMatchingWords(tokenisedSentence, i, matchLength), null);
 		result.nrWordsConsumed = matchLength;
+		result.stemComplexity = StringTree.getMatchValue(match);
 		return result;
 	}
 	
-	private final DecomposedWord directSingleWordMatch(String[] tokenisedSentence, int i)
+	private final DecomposedWord directSingleWordMatch(TokenisedSentence tokenisedSentence, int i,
+		int match)
 	{
 		// Check for a disconnected prefix.
 		String prefix = null;
 		int prefixIndex = i - 1;
-		if(prefixIndex >= 0 && complexity_isPrefix(tokenisedSentence[prefixIndex]))
-			prefix = tokenisedSentence[prefixIndex];
+		if(prefixIndex >= 0)
+			prefix = complexity_findPrefix(tokenisedSentence.getToken(prefixIndex));
 		
 		// Check for a disconnected postfix.
 		String postfix = null;
 		int postfixIndex = i + 1;
-		if(postfixIndex < tokenisedSentence.length
-			&& complexity_isPostfix(tokenisedSentence[postfixIndex]))
-		{
-			postfix = tokenisedSentence[postfixIndex];
-		}
+		if(postfixIndex < tokenisedSentence.getNrTokens())
+			postfix = complexity_findPostfix(tokenisedSentence.getToken(postfixIndex));
 		
 		// The stem is the whole "currentWord" (nothing cut off).
-		DecomposedWord result = new DecomposedWord(prefix, tokenisedSentence[i], postfix);
+		DecomposedWord result = new DecomposedWord(prefix, tokenisedSentence.getTokenText(i), postfix);
 		result.nrWordsConsumed = postfix == null ? 1 : 2;
+		result.stemComplexity = StringTree.getMatchValue(match);
 		return result;
 	}
 	
 	// Case: No direct match (need to check for integrated pre- and/or postfixes)!
-	private final DecomposedWord noDirectMatch(String[] tokenisedSentence, int i)
+	private final DecomposedWord noDirectMatch(TokenisedSentence tokenisedSentence, int i,
+		AnalysisContext context)
 	{
-		// Backup of the current token (also a shortcut to the original token).
-		String word = tokenisedSentence[i];
+		// Length of the current token (before anything is cut off).
+		int wordLength = tokenisedSentence.getTokenLength(i);
 		
 		// First see if there is an integrated postfix.
-		ArrayList<Integer> postfixLengths = complexity_integratedPostfixLengths(word);
+		int[] postfixLengths = context.getPostfixLengths(
+			listsReader.postfixTrie.getMaxSequenceLength());
+		int nrPostfixLengths = complexity_integratedPostfixLengths(tokenisedSentence.getToken(i),
+			postfixLengths);
 		
 		// The word does NOT have any integrated postfixes.
-		if(postfixLengths.isEmpty())
-			return noIntegratedPostfix(tokenisedSentence, i);
+		if(nrPostfixLengths == 0)
+			return noIntegratedPostfix(tokenisedSentence, i, context);
 		
 		// There are one or more possible postfixes. Try them all.
+		int postfixLength;
 		DecomposedWord match;
-		for(int postfixLength : postfixLengths)
+		for(int j = 0; j < nrPostfixLengths; j++)
 		{
+			postfixLength = postfixLengths[j];
+			
 			// If the word is the postfix on its own, then there is nothing left to match with.
 			// Since the postfix length only gets longer with each iteration, there is no point
 			// continuing, so don't waste more time and stop right away.
-			if(postfixLength >= word.length())
+			if(postfixLength >= wordLength)
 				return null;
 			
 			// Try the current postfix(-length).
-			match = hasIntegratedPostfix(tokenisedSentence, i, postfixLength);
+			match = hasIntegratedPostfix(tokenisedSentence, i, postfixLength, context);
 			
 			// Return as soon as you have a match. Theoretically there could be a longer postfix
 			// that also has a match, when there are multiple solutions we choose the one with
@@ -190,23 +209,30 @@ public final class ComplexityChecker
 		return null;
 	}
 	
-	private final DecomposedWord noIntegratedPostfix(String[] tokenisedSentence, int i)
+	private final DecomposedWord noIntegratedPostfix(TokenisedSentence tokenisedSentence, int i,
+		AnalysisContext context)
 	{
 		// No postfix and no match (yet). See if there is an integrated prefix.
-		ArrayList<Integer> prefixLengths = complexity_integratedPrefixLengths(tokenisedSentence[i]);
+		int[] prefixLengths = context.getPrefixLengths(
+			listsReader.prefixTrie.getMaxSequenceLength());
+		int nrPrefixLengths = complexity_integratedPrefixLengths(tokenisedSentence.getToken(i),
+			prefixLengths);
 		
 		// The word does NOT have any integrated prefixes. There cannot be a match.
-		if(prefixLengths.isEmpty())
+		if(nrPrefixLengths == 0)
 			return null;
 		
 		// There are one or more possible prefixes. Try them all.
+		int prefixLength;
 		DecomposedWord match;
-		for(int prefixLength : prefixLengths)
+		for(int j = 0; j < nrPrefixLengths; j++)
 		{
+			prefixLength = prefixLengths[j];
+			
 			// If the word is the prefix on its own, then there is nothing left to match with.
 			// Since the prefix length only gets longer with each iteration, there is no point
 			// continuing, so stop now and don't lose time.
-			if(prefixLength >= tokenisedSentence[i].length())
+			if(prefixLength >= tokenisedSentence.getTokenLength(i))
 				return null;
 			
 			// Try the current prefix(-length).
@@ -222,93 +248,97 @@ public final class ComplexityChecker
 		return null;
 	}
 	
-	private final DecomposedWord noIntegratedPostfixButPrefix(String[] tokenisedSentence, int i,
-		int prefixLength)
+	private final DecomposedWord noIntegratedPostfixButPrefix(TokenisedSentence tokenisedSentence,
+		int i, int prefixLength)
 	{
-		// Backup of the current token (also a shortcut to the original token).
-		String word = tokenisedSentence[i];
+		// Backup of the current token.
+		int wordStart = tokenisedSentence.getTokenStart(i);
+		int wordLength = tokenisedSentence.getTokenLength(i);
 		
 		// The word has an integrated prefix! Remove it from the current token.
-		tokenisedSentence[i] = word.substring(prefixLength, word.length());
+		tokenisedSentence.setToken(i, wordStart + prefixLength, wordLength - prefixLength);
 		
 		// Try for another match now the prefix has been removed.
 		// Note: This does allow a multi-word matches to have pre- and/or postfixes!
 		// This is apparently never the case anyway so it is irrelevant if it is allowed or not.
-		int matchLength = complexity_nrMatchingWords(tokenisedSentence, i);
+		int stemMatch = complexity_findMatch(tokenisedSentence, i);
+		int matchLength = StringTree.getMatchLength(stemMatch);
 		
 		// No match even after removing the prefix.
 		if(matchLength == 0)
 		{
 			// Put the removed prefix back.
-			tokenisedSentence[i] = word;
+			tokenisedSentence.setToken(i, wordStart, wordLength);
 			return null;
 		}
 		
 		// Save the prefix.
-		String prefix = word.substring(0, prefixLength);
+		String prefix = tokenisedSentence.getText(wordStart, prefixLength);
 		
 		// Check for a disconnected postfix.
 		String postfix = null;
 		int postfixIndex = i + matchLength;
-		if(postfixIndex < tokenisedSentence.length
-			&& complexity_isPostfix(tokenisedSentence[postfixIndex]))
-		{
-			postfix = tokenisedSentence[postfixIndex];
-		}
+		if(postfixIndex < tokenisedSentence.getNrTokens())
+			postfix = complexity_findPostfix(tokenisedSentence.getToken(postfixIndex));
 		
 		// Create the result.
 		DecomposedWord result = new DecomposedWord(prefix,
 			collectMatchingWords(tokenisedSentence, i, matchLength), postfix);
 		result.nrWordsConsumed = matchLength + (postfix == null ? 0 : 1);
+		result.stemComplexity = StringTree.getMatchValue(stemMatch);
 		
 		// Put the removed prefix back.
-		tokenisedSentence[i] = word;
+		tokenisedSentence.setToken(i, wordStart, wordLength);
 		return result;
 	}
 	
-	private final DecomposedWord hasIntegratedPostfix(String[] tokenisedSentence, int i,
-		int postfixLength)
+	private final DecomposedWord hasIntegratedPostfix(TokenisedSentence tokenisedSentence, int i,
+		int postfixLength, AnalysisContext context)
 	{
-		// Backup of the current token (also a shortcut to the original token).
-		String word = tokenisedSentence[i];
+		// Backup of the current token.
+		int wordStart = tokenisedSentence.getTokenStart(i);
+		int wordLength = tokenisedSentence.getTokenLength(i);
 		
 		// The word has an integrated postfix! Remove it from the current token.
-		tokenisedSentence[i] = word.substring(0, word.length() - postfixLength);
-		
-		// Save the postfix.
-		String postfix = word.substring(word.length() - postfixLength, word.length());
+		tokenisedSentence.setToken(i, wordStart, wordLength - postfixLength);
 		
 		// Stem (required to be of length 1) + integrated postfix.
-		if(complexity_singleWordMatch(tokenisedSentence[i]))
+		int stemMatch = complexity_findSingleWordMatch(tokenisedSentence, i);
+		if(stemMatch != StringTree.NO_MATCH)
 		{
 			// Check for a disconnected prefix.
 			String prefix = null;
 			int prefixIndex = i - 1;
-			if(prefixIndex >= 0 && complexity_isPrefix(tokenisedSentence[prefixIndex]))
-				prefix = tokenisedSentence[prefixIndex];
+			if(prefixIndex >= 0)
+				prefix = complexity_findPrefix(tokenisedSentence.getToken(prefixIndex));
 			
-			DecomposedWord result = new DecomposedWord(prefix, tokenisedSentence[i], postfix);
+			DecomposedWord result = new DecomposedWord(prefix, tokenisedSentence.getTokenText(i),
+				tokenisedSentence.getText(wordStart + wordLength - postfixLength, postfixLength));
 			result.nrWordsConsumed = 1;
+			result.stemComplexity = StringTree.getMatchValue(stemMatch);
 			
 			// Put the removed postfix back.
-			tokenisedSentence[i] = word;
+			tokenisedSentence.setToken(i, wordStart, wordLength);
 			return result;
 		}
 		
 		// No match even after removing the postfix. See if there are ALSO a prefixes.
-		ArrayList<Integer> prefixLengths = complexity_integratedPrefixLengths(tokenisedSentence[i]);
+		int[] prefixLengths = context.getPrefixLengths(
+			listsReader.prefixTrie.getMaxSequenceLength());
+		int nrPrefixLengths = complexity_integratedPrefixLengths(tokenisedSentence.getToken(i),
+			prefixLengths);
 		
 		// The word does NOT have any integrated prefixes. There cannot be a match.
-		if(prefixLengths.isEmpty())
+		if(nrPrefixLengths == 0)
 		{
 			// Put the removed postfix back.
-			tokenisedSentence[i] = word;
+			tokenisedSentence.setToken(i, wordStart, wordLength);
 			return null;
 		}
 		
 		// There are one or more possible prefixes. Try them all.
 		DecomposedWord match;
-		for(int prefixLength : prefixLengths)
+		for(int j = 0; j < nrPrefixLengths; j++)
 		{
 			// Note: DO NOT return if the prefix is the whole remaining token! This leaves no word
 			// stem to match BUT we may later add the postfix back on, thus creating a non-zero
@@ -316,7 +346,8 @@ public final class ComplexityChecker
 			// also identical to a valid postfix. Probably doesn't exist, but just in case...
 			
 			// Try the current prefix(-length).
-			match = hasIntegratedPostfixAndPrefix(tokenisedSentence, i, postfix, prefixLength);
+			match = hasIntegratedPostfixAndPrefix(tokenisedSentence, i, postfixLength,
+				prefixLengths[j]);
 			
 			// Return as soon as you have a match. Theoretically there could be a longer prefix
 			// that also has a match; when there are multiple solutions we choose the one with
@@ -324,68 +355,71 @@ public final class ComplexityChecker
 			if(match != null)
 			{
 				// Put the removed postfix back.
-				tokenisedSentence[i] = word;
+				tokenisedSentence.setToken(i, wordStart, wordLength);
 				return match;
 			}
 		}
 		// Still not match after having checked all possible prefixes.
 		// Put the removed postfix back.
-		tokenisedSentence[i] = word;
+		tokenisedSentence.setToken(i, wordStart, wordLength);
 		return null;
 	}
 	
-	private final DecomposedWord hasIntegratedPostfixAndPrefix(String[] tokenisedSentence, int i,
-		String postfix, int prefixLength)
+	// The postfix has already been removed from the current token and directly follows it.
+	private final DecomposedWord hasIntegratedPostfixAndPrefix(TokenisedSentence tokenisedSentence,
+		int i, int postfixLength, int prefixLength)
 	{
-		// Backup of the current token (also a shortcut to the original token).
-		String word = tokenisedSentence[i];
+		// Backup of the current token.
+		int wordStart = tokenisedSentence.getTokenStart(i);
+		int wordLength = tokenisedSentence.getTokenLength(i);
 		
 		// There is an integrated prefix. Remove it from the current token.
-		tokenisedSentence[i] =
-			tokenisedSentence[i].substring(prefixLength, tokenisedSentence[i].length());
-		
-		// Save the prefix.
-		String prefix = word.substring(0, prefixLength);
+		tokenisedSentence.setToken(i, wordStart + prefixLength, wordLength - prefixLength);
 		
 		// Try again for a match.
-		if(complexity_singleWordMatch(tokenisedSentence[i]))
+		int stemMatch = complexity_findSingleWordMatch(tokenisedSentence, i);
+		if(stemMatch != StringTree.NO_MATCH)
 		{
-			DecomposedWord result = new DecomposedWord(prefix, tokenisedSentence[i], postfix);
+			DecomposedWord result = new DecomposedWord(
+				tokenisedSentence.getText(wordStart, prefixLength), tokenisedSentence.getTokenText(i),
+				tokenisedSentence.getText(wordStart + wordLength, postfixLength));
 			result.nrWordsConsumed = 1;
+			result.stemComplexity = StringTree.getMatchValue(stemMatch);
 			
 			// Put the removed pre- and postfixes back.
-			tokenisedSentence[i] = word;
+			tokenisedSentence.setToken(i, wordStart, wordLength);
 			return result;
 		}
 		
 		// Still no match. There is just one possibility left: The postfix could have belonged to
 		// the stem and we should not have removed it. So put it back on and see if we get a match
 		// with the prefix taken off but the postfix (back) on.
-		tokenisedSentence[i] += postfix;
-		postfix = null;
+		tokenisedSentence.setToken(i, wordStart + prefixLength,
+			wordLength - prefixLength + postfixLength);
+		String postfix = null;
 		
 		// There is the possibility of a multi-word match. Apparently this doesn't happen after a
 		// prefix (which is present in this case) but I don't see why I should disallow it.
 		// It will probably just not come up, but if it does and is undesirable then instead of
-		// getting the match length use complexity_singleWordMatch.
+		// getting the match length use complexity_findSingleWordMatch.
 		// The code for a single-word only match is commented out below.
-		int matchLength = complexity_nrMatchingWords(tokenisedSentence, i);
+		stemMatch = complexity_findMatch(tokenisedSentence, i);
+		int matchLength = StringTree.getMatchLength(stemMatch);
 		if(matchLength > 0)
 		{
 			// Check for a disconnected postfix.
 			int postfixIndex = i + matchLength;
-			if(postfixIndex < tokenisedSentence.length
-				&& complexity_isPostfix(tokenisedSentence[postfixIndex]))
-			{
-				postfix = tokenisedSentence[postfixIndex];
-			}
+			if(postfixIndex < tokenisedSentence.getNrTokens())
+				postfix = complexity_findPostfix(tokenisedSentence.getToken(postfixIndex));
 			
 			DecomposedWord result = new DecomposedWord(
-				prefix, collectMatchingWords(tokenisedSentence, i, matchLength), postfix);
+				tokenisedSentence.getText(wordStart, prefixLength),
+				collectMatchingWords(tokenisedSentence, i, matchLength), postfix);
 			result.nrWordsConsumed = matchLength + postfix == null ? 0 : 1;
+			result.stemComplexity = StringTree.getMatchValue(stemMatch);
 			
 			// Reset the token to it's original value.
-			tokenisedSentence[i] = word;
+			tokenisedSentence.setToken(i, wordStart, wordLength);
 			return result;
 		}
 		
@@ -412,60 +446,64 @@ public final class ComplexityChecker
 		
 		// Run out of possibilities. There is no match.
 		// Reset the token to it's original value.
-		tokenisedSentence[i] = word;
+		tokenisedSentence.setToken(i, wordStart, wordLength);
 		return null;
 	}
 	
 	// ------------------ HELPERS --------------
 	
-	private final ArrayList<String> collectMatchingWords(String[] tokenisedSentence,
+	private final ArrayList<String> collectMatchingWords(TokenisedSentence tokenisedSentence,
 		int startIndex, int matchLength)
 	{
 		ArrayList<String> matchingWordList = new ArrayList<String>(matchLength);
 		
 		for(int i = 0; i < matchLength; i++)
-			matchingWordList.add(tokenisedSentence[startIndex + i]);
+			matchingWordList.add(tokenisedSentence.getTokenText(startIndex + i));
 		
 		return matchingWordList;
 	}
 	
 	// ------------------ WORD DISECTION --------------
 	
-	private final int complexity_nrMatchingWords(String[] tokenisedSentence, int i)
+	// The matches hold both the number of words matched and the complexity of the sequence.
+	private final int complexity_findMatch(TokenisedSentence tokenisedSentence, int i)
 	{
-		return listsReader.complexityWordSequenceTree.getLongestAcceptSequenceLength(
-			tokenisedSentence, i);
+		return listsReader.complexityWordSequenceTree.getLongestMatch(tokenisedSentence, i);
 	}
 	
-	private final boolean complexity_singleWordMatch(String word)
+	private final int complexity_findSingleWordMatch(TokenisedSentence tokenisedSentence, int i)
 	{
-		return listsReader.complexityWordSequenceTree.isSingleWordValid(word);
+		return listsReader.complexityWordSequenceTree.getSingleWordMatch(tokenisedSentence, i);
 	}
 	
-	private final boolean complexity_isPrefix(String wholeWord)
+	// Returns the prefix (as stored in the lookup table) or null if the whole word isn't one.
+	private final String complexity_findPrefix(CharSequence wholeWord)
 	{
-		return listsReader.prefixLookupTable.containsKey(wholeWord);
+		return listsReader.prefixTable.find(wholeWord);
 	}
 	
-	private final boolean complexity_isPostfix(String wholeWord)
+	// Returns the postfix (as stored in the lookup table) or null if the whole word isn't one.
+	private final String complexity_findPostfix(CharSequence wholeWord)
 	{
-		return listsReader.postfixLookupTable.containsKey(wholeWord);
+		return listsReader.postfixTable.find(wholeWord);
 	}
 	
-	private final ArrayList<Integer> complexity_integratedPrefixLengths(String word)
+	// The lengths are written into the given array (shortest first), returns how many there are.
+	private final int complexity_integratedPrefixLengths(CharSequence word, int[] prefixLengths)
 	{
-		return listsReader.prefixTree.getAllAcceptSequenceLengths_leftToRight(word, 0);
+		return listsReader.prefixTrie.getAllAcceptSequenceLengths_leftToRight(word, 0,
+			prefixLengths);
 	}
 	
-	private final ArrayList<Integer> complexity_integratedPostfixLengths(String word)
+	private final int complexity_integratedPostfixLengths(CharSequence word, int[] postfixLengths)
 	{
-		return listsReader.postfixTree.getAllAcceptSequenceLengths_rightToLeft(
-			word, word.length() - 1);
+		return listsReader.postfixTrie.getAllAcceptSequenceLengths_rightToLeft(
+			word, word.length() - 1, postfixLengths);
 	}
 	
 	// ------------------ NEGATING VERBS --------------
 	
-	private final int negatingVerbs_nrMatchingWords(String[] tokenisedSentence, int i)
+	private final int negatingVerbs_nrMatchingWords(TokenisedSentence tokenisedSentence, int i)
 	{
 		return listsReader.negatingVerbSequenceTree.getLongestAcceptSequenceLength(
 			tokenisedSentence, i);
@@ -473,18 +511,16 @@ public final class ComplexityChecker
 	
 	// ------------------ COMPLEXITY CATEGORISATION --------------
 	
-	private final byte getStemComplexity(ArrayList<String> stemWords)
+	private final byte getStemComplexity(DecomposedWord complexityWord)
 	{
-		if(listsReader.lcWords.contains(stemWords))
-			return -1;
-		
-		if(listsReader.hcWords.contains(stemWords))
-			return 1;
+		// Found in the complexity word sequence tree together with the stem.
+		if(complexityWord.stemComplexity != 0)
+			return complexityWord.stemComplexity;
 		
 		// Could not get the complexity value of the stem (the actual complexity word(s))!
 		// Warn the user and return 0 to completely neutralise the word.
 		System.out.println("Error: Could not asess the complexity of "
-			+ UList.listToString(stemWords));
+			+ UList.listToString(complexityWord.stemWords));
 		return 0;
 	}
 	
@@ -496,9 +532,9 @@ public final class ComplexityChecker
 			return 1;
 		
 		// Get the prefix's complexity value.
-		Byte prefixComplexity = listsReader.prefixLookupTable.get(prefix);
-		if(prefixComplexity != null)
-			return prefixComplexity;
+		int slot = listsReader.prefixTable.getSlot(prefix);
+		if(slot != PerfectHashTable.NOT_FOUND)
+			return listsReader.prefixTable.getValue(slot);
 		
 		// Could not get the complexity value of the given prefix.
 		// Warn the user and treat as though the prefix did not exist.
@@ -514,9 +550,9 @@ public final class ComplexityChecker
 			return 1;
 		
 		// Get the postfix's complexity value.
-		Byte postfixComplexity = listsReader.postfixLookupTable.get(postfix);
-		if(postfixComplexity != null)
-			return postfixComplexity;
+		int slot = listsReader.postfixTable.getSlot(postfix);
+		if(slot != PerfectHashTable.NOT_FOUND)
+			return listsReader.postfixTable.getValue(slot);
 		
 		// Could not get the complexity value of the given postfix.
 		// Warn the user and treat as though the postfix did not exist.
@@ -20,15 +20,22 @@ package analyser;
  */
 
 import java.io.BufferedReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import main.Config;
-import utils.UArray;
+import main.NormalisationProfile;
 import utils.UFile;
 import utils.UString;
 import dataStructures.CharTree;
+import dataStructures.DoubleArrayTrie;
+import dataStructures.PerfectHashTable;
 import dataStructures.StringTree;
+import dataStructures.SymbolCounts;
+import dataStructures.WordTable;
 
 public class ConfigReader
 {
@@ -37,41 +44,126 @@ public class ConfigReader
 	// ================================================================
 	private static final String FARSI_SUPERLATIVE_POSTFIX = "ترین";
 	
+	// The values stored with the sequences of the complexity word sequence tree.
+	public static final byte LC_COMPLEXITY = -1;
+	public static final byte HC_COMPLEXITY = 1;
+	
+	// The lines of a word sequence file are cleaned in chunks of this size, in parallel.
+	private static final int LINES_PER_CHUNK = 8192;
+	
+	// The files each word sequence tree is read from, in the order of getWordSequenceTrees.
+	private static final String[][] WORD_SEQUENCE_FILES = new String[][] {
+		{Config.LC_FILE, Config.HC_FILE}, {Config.EXCEPTION_WORDS_FILE},
+		{Config.NEGATING_VERBS_FILE}};
+	
 	// ================================================================
 	// ======================== Static Methods ========================
 	// ================================================================
+	// Returns a ConfigReader that has been set up, or null on failure. With
+	// Config.OFF_HEAP_LEXICON a lexicon that had to be built on the heap is read again from the
+	// snapshot that was just written.
+	public static final ConfigReader create(NormalisationProfile normalisationProfile,
+		String configFolder)
+	{
+		return create(normalisationProfile, configFolder, null);
+	}
+	
+	// The same for a lexicon of the given registry (null for none), which shares what is equal in
+	// its other lexicons while it is being built.
+	static final ConfigReader create(NormalisationProfile normalisationProfile,
+		String configFolder, LexiconRegistry registry)
+	{
+		ConfigReader configReader = new ConfigReader(normalisationProfile, configFolder, registry);
+		if(!configReader.setup())
+			return null;
+		
+		if(Config.OFF_HEAP_LEXICON && Config.USE_LEXICON_SNAPSHOT && !configReader.isOffHeap)
+		{
+			// Keep the one on the heap if the snapshot could not be written or read.
+			ConfigReader offHeapReader = new ConfigReader(normalisationProfile, configFolder,
+				registry);
+			if(offHeapReader.setup() && offHeapReader.isOffHeap)
+				return offHeapReader;
+		}
+		return configReader;
+	}
 	
 	// ================================================================
 	// ============================ Fields ============================
 	// ================================================================
+	// The rules used to clean up every line read from file.
+	public final NormalisationProfile normalisationProfile;
+	
+	// Where the lexicon files are read from.
+	public final String configFolder;
+	
+	// The registry this lexicon is loaded into, or null.
+	private final LexiconRegistry registry;
+	
+	// Identifies the content of the config files the lexicon was built from. Null until setup has
+	// been called.
+	public String lexiconVersion;
+	
+	// The checksums of the config files, taken by setup. Null if they could not be read.
+	private long[] sourceChecksums;
+	
+	// Whether the word table and word sequence trees are searched in the mapped snapshot.
+	public boolean isOffHeap;
+	
 	// Configurations and data read from file.
-	public HashSet<ArrayList<String>> lcWords;
-	public HashSet<ArrayList<String>> hcWords;
-	public HashMap<String, Byte> prefixLookupTable;
-	public HashMap<String, Byte> postfixLookupTable;
 	public String farsiSuperlativePostfix;
 	public ArrayList<String[]> substitutionRules;
 	
 	// Metadata.
+	// Every word in the word sequence trees, which share its IDs.
+	public final WordTable sequenceWords;
+	
+	// Every LC and HC word sequence, with its complexity (LC_COMPLEXITY or HC_COMPLEXITY) as the
+	// value. A sequence in both files counts as LC.
 	public final StringTree complexityWordSequenceTree;
 	public final StringTree exceptionWordsTree;
 	public final StringTree negatingVerbSequenceTree;
+	// Only filled when the lexicon is built from the config files, not when it is loaded from a
+	// snapshot.
 	public final CharTree prefixTree;
 	public final CharTree postfixTree;
 	
+	// Faster (immutable) copies of the prefix and postfix trees, built once they are complete.
+	// This and the tables below are only set by setup (to those of another lexicon of the registry
+	// if they are equal) and never changed afterwards.
+	public DoubleArrayTrie prefixTrie;
+	public DoubleArrayTrie postfixTrie;
+	
+	// Every prefix and postfix with its complexity. Tokens can be looked up without a String.
+	public PerfectHashTable prefixTable;
+	public PerfectHashTable postfixTable;
+	
 	// ================================================================
 	// ======================== Constructor(s) ========================
 	// ================================================================
-	public ConfigReader()
+	public ConfigReader(NormalisationProfile normalisationProfile)
+	{
+		this(normalisationProfile, Config.CONFIG_FOLDER);
+	}
+	
+	// Reads the lexicon files from the given folder. The alphabet and substitutions are those of
+	// the normalisation profile.
+	public ConfigReader(NormalisationProfile normalisationProfile, String configFolder)
 	{
-		lcWords = new HashSet<ArrayList<String>>();
-		hcWords = new HashSet<ArrayList<String>>();
-		prefixLookupTable = new HashMap<String, Byte>();
-		postfixLookupTable = new HashMap<String, Byte>();
+		this(normalisationProfile, configFolder, null);
+	}
+	
+	private ConfigReader(NormalisationProfile normalisationProfile, String configFolder,
+		LexiconRegistry registry)
+	{
+		this.normalisationProfile = normalisationProfile;
+		this.configFolder = configFolder;
+		this.registry = registry;
 		
-		complexityWordSequenceTree = new StringTree();
-		exceptionWordsTree = new StringTree();
-		negatingVerbSequenceTree = new StringTree();
+		sequenceWords = new WordTable();
+		complexityWordSequenceTree = new StringTree(sequenceWords);
+		exceptionWordsTree = new StringTree(sequenceWords);
+		negatingVerbSequenceTree = new StringTree(sequenceWords);
 		prefixTree = new CharTree();
 		postfixTree = new CharTree();
 	}
@@ -81,143 +173,232 @@ public class ConfigReader
 	// ================================================================
 	public final boolean setup()
 	{
-		System.out.println("Reading LC file...");
-		if(!readLcFile())
-			return false;
-		
-		System.out.println("Reading HC file...");
-		if(!readHcFile())
-			return false;
-		
-		System.out.println("Reading prefix file...");
-		if(!readPrefixFile())
-			return false;
-		
-		System.out.println("Reading postfix file...");
-		if(!readPostfixFile())
-			return false;
-		
-		System.out.println("Reading negatingVerbs file...");
-		if(!readNegatingVerbsFile())
-			return false;
-		
-		System.out.println("Reading exception words file...");
-		if(!readExceptionWordsFile())
-			return false;
-		
-		System.out.println("Reading superlative file...");
-		if(!readSuperlativeFile())
-			return false;
-		
-		return true;
-	}
-	
-	// ================================================================
-	// ======================= Private Methods ========================
-	// ================================================================
-	private final boolean readLcFile()
-	{
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.LC_FILE);
-		if(br == null)
-		{
-			System.out.println("Could not open file: " + Config.LC_FILE);
-			return false;
-		}
+		// Taken before the files are read, so a snapshot is never written for files that changed
+		// while they were being read.
+		sourceChecksums = ConfigSnapshot.checksumSources(configFolder,
+			normalisationProfile.configFolder);
+		if(sourceChecksums != null)
+			lexiconVersion = ConfigSnapshot.getVersion(sourceChecksums);
 		
-		ArrayList<String> lcWordSequencesList = UFile.readLines(br);
-		if(lcWordSequencesList == null)
+		// Load the compiled lexicon if none of its source files have changed.
+		if(Config.USE_LEXICON_SNAPSHOT && sourceChecksums != null)
 		{
-			System.out.println("Failed to read from: " + Config.LC_FILE);
-			return false;
+			ConfigSnapshot snapshot = ConfigSnapshot.open(configFolder, sourceChecksums);
+			if(snapshot != null)
+			{
+				System.out.println("Reading " + Config.LEXICON_SNAPSHOT_FILE + "...");
+				isOffHeap = Config.OFF_HEAP_LEXICON;
+				if(!snapshot.readInto(this, isOffHeap) || !readSuperlativeFile())
+					return false;
+				
+				shareWordSequences();
+				return true;
+			}
 		}
 		
-		// Process each sequence of words.
-		String sequenceAsOneString;
-		String[] sequenceAsSeparateWords;
-		for(int i = 0; i < lcWordSequencesList.size(); i++)
+		// Read all files at the same time. They are then added to the lexicon one after the other
+		// in a fixed order (the lines of the large ones being cleaned in parallel), so it is the
+		// same as if they had been read one by one and errors are reported in that order as well.
+		// The negating verbs and exception words come first, so their words get the same IDs in
+		// every lexicon read from the same files and their trees can be shared by a registry.
+		ConfigFile lcFile = new ConfigFile(Config.LC_FILE);
+		ConfigFile hcFile = new ConfigFile(Config.HC_FILE);
+		ConfigFile prefixFile = new ConfigFile(Config.PREFIX_FILE);
+		ConfigFile postfixFile = new ConfigFile(Config.POSTFIX_FILE);
+		ConfigFile negatingVerbsFile = new ConfigFile(Config.NEGATING_VERBS_FILE);
+		ConfigFile exceptionWordsFile = new ConfigFile(Config.EXCEPTION_WORDS_FILE);
+		ForkJoinPool pool = new ForkJoinPool(getNrThreads());
+		try
 		{
-			// The sequence to be processed.
-			sequenceAsOneString = lcWordSequencesList.get(i);
+			pool.invoke(new ParallelActions(new RecursiveAction[] {lcFile, hcFile, prefixFile,
+				postfixFile, negatingVerbsFile, exceptionWordsFile}));
 			
-			// Clean up the string.
-			sequenceAsOneString = Config.cleanString(sequenceAsOneString);
+			System.out.println("Reading negatingVerbs file...");
+			if(!addWordSequences(negatingVerbsFile, negatingVerbSequenceTree, (byte)0, pool))
+				return false;
 			
-			// Split into individual words on any whitespace boundary.
-			sequenceAsSeparateWords = sequenceAsOneString.split(UFile.ANY_WHITE_SPACE_REG_EX);
+			System.out.println("Reading exception words file...");
+			if(!addWordSequences(exceptionWordsFile, exceptionWordsTree, (byte)0, pool))
+				return false;
 			
-			// Add the sequence to the tree.
-			complexityWordSequenceTree.addValidWordSequence(sequenceAsSeparateWords);
+			System.out.println("Reading LC file...");
+			if(!addWordSequences(lcFile, complexityWordSequenceTree, LC_COMPLEXITY, pool))
+				return false;
 			
-			// Also add to the LC HashSet.
-			lcWords.add(UArray.arrayToArrayList(sequenceAsSeparateWords));
+			// The LC file has already been added, so sequences that are also LC keep that
+			// complexity.
+			System.out.println("Reading HC file...");
+			if(!addWordSequences(hcFile, complexityWordSequenceTree, HC_COMPLEXITY, pool))
+				return false;
+			
+			System.out.println("Reading prefix file...");
+			if(!readPrefixFile(prefixFile))
+				return false;
 			
-			// TODO For testing.
-			Config.checkForUnknownSymbols(sequenceAsSeparateWords);
+			System.out.println("Reading postfix file...");
+			if(!readPostfixFile(postfixFile))
+				return false;
+			
+			System.out.println("Reading superlative file...");
+			if(!readSuperlativeFile())
+				return false;
+			
+			// All sequences have been added, so the trees can be made as small as possible. They
+			// only share the word table, which doesn't change any more.
+			pool.invoke(new ParallelActions(new RecursiveAction[] {
+				new TreeCompletion(complexityWordSequenceTree),
+				new TreeCompletion(exceptionWordsTree),
+				new TreeCompletion(negatingVerbSequenceTree)}));
+		}
+		finally
+		{
+			pool.shutdown();
 		}
+		
+		// Compile the lexicon so the next start doesn't have to build it again. This is done before
+		// the trees are shared, as the nodes of a tree read off-heap cannot be written.
+		if(Config.USE_LEXICON_SNAPSHOT && sourceChecksums != null)
+		{
+			System.out.println("Writing " + Config.LEXICON_SNAPSHOT_FILE + "...");
+			ConfigSnapshot.write(this, configFolder, sourceChecksums);
+		}
+		shareWordSequences();
 		return true;
 	}
 	
-	private final boolean readHcFile()
+	// Returns the equal lookup of another lexicon of the registry if there is one.
+	final PerfectHashTable share(PerfectHashTable table)
 	{
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.HC_FILE);
-		if(br == null)
-		{
-			System.out.println("Could not open file: " + Config.HC_FILE);
-			return false;
-		}
+		return registry == null ? table : registry.share(table);
+	}
+	
+	final DoubleArrayTrie share(DoubleArrayTrie trie)
+	{
+		return registry == null ? trie : registry.share(trie);
+	}
+	
+	final StringTree[] getWordSequenceTrees()
+	{
+		return new StringTree[] {complexityWordSequenceTree, exceptionWordsTree,
+			negatingVerbSequenceTree};
+	}
+	
+	// Identifies the sequences of each tree by the files it is read from (see
+	// ConfigSnapshot.getSourcesKey). Null if the files could not be read.
+	final String[] getWordSequenceKeys()
+	{
+		if(sourceChecksums == null)
+			return null;
 		
-		ArrayList<String> hcWordSequencesList = UFile.readLines(br);
-		if(hcWordSequencesList == null)
+		String[] keys = new String[WORD_SEQUENCE_FILES.length];
+		for(int i = 0; i < keys.length; i++)
+			keys[i] = ConfigSnapshot.getSourcesKey(sourceChecksums, WORD_SEQUENCE_FILES[i]);
+		return keys;
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	// Uses the Strings of the words that other lexicons of the registry also have (the IDs don't
+	// change) and the nodes of their trees that are read from the same files. The trees must be
+	// complete.
+	private final void shareWordSequences()
+	{
+		if(registry == null)
+			return;
+		
+		registry.shareWords(sequenceWords);
+		registry.shareTrees(this);
+	}
+	
+	// Zero threads in the config means one per processor.
+	private static final int getNrThreads()
+	{
+		if(Config.NR_ANALYSIS_THREADS <= 0)
+			return Runtime.getRuntime().availableProcessors();
+		
+		return Config.NR_ANALYSIS_THREADS;
+	}
+	
+	private static final void completeTree(StringTree tree)
+	{
+		if(Config.SUCCINCT_WORD_SEQUENCE_TREES)
+			tree.encodeSuccinctly();
+		else
+			tree.minimise();
+	}
+	
+	// The lookup table is only needed while the file is read, the values are kept in this one.
+	private static final PerfectHashTable createTable(LinkedHashMap<String, Byte> lookupTable)
+	{
+		String[] words = new String[lookupTable.size()];
+		byte[] values = new byte[words.length];
+		int i = 0;
+		for(Map.Entry<String, Byte> entry : lookupTable.entrySet())
 		{
-			System.out.println("Failed to read from: " + Config.HC_FILE);
-			return false;
+			words[i] = entry.getKey();
+			values[i] = entry.getValue();
+			i++;
 		}
+		return new PerfectHashTable(words, values);
+	}
+	
+	// Cleans the word sequences of a file in chunks (in parallel) and adds them to the tree in the
+	// order of the lines.
+	private final boolean addWordSequences(ConfigFile file, StringTree tree, byte value,
+		ForkJoinPool pool)
+	{
+		if(!file.reportErrors())
+			return false;
 		
-		// Process each sequence of words.
-		String sequenceAsOneString;
-		String[] sequenceAsSeparateWords;
-		for(int i = 0; i < hcWordSequencesList.size(); i++)
+		// Chunks that are being cleaned, the oldest first. Don't clean further ahead than needed
+		// to keep all threads busy, so only a few chunks are held at a time.
+		ArrayDeque<LineCleaning> pendingChunks = new ArrayDeque<LineCleaning>();
+		int maxNrPendingChunks = 2 * pool.getParallelism();
+		SymbolCounts unknownSymbols = new SymbolCounts();
+		LineCleaning chunk;
+		for(int start = 0; start < file.lines.size(); start += LINES_PER_CHUNK)
 		{
-			// The sequence to be processed.
-			sequenceAsOneString = hcWordSequencesList.get(i);
-			
-			// Clean up the string.
-			sequenceAsOneString = Config.cleanString(sequenceAsOneString);
-			
-			// Split into individual words on any whitespace boundary.
-			sequenceAsSeparateWords = sequenceAsOneString.split(UFile.ANY_WHITE_SPACE_REG_EX);
-			
-			// Add the sequence to the tree.
-			complexityWordSequenceTree.addValidWordSequence(sequenceAsSeparateWords);
-			
-			// Also add to the HC HashSet.
-			hcWords.add(UArray.arrayToArrayList(sequenceAsSeparateWords));
+			if(pendingChunks.size() == maxNrPendingChunks)
+				addChunk(pendingChunks.removeFirst(), tree, value, unknownSymbols);
 			
-			// TODO For testing.
-			Config.checkForUnknownSymbols(sequenceAsSeparateWords);
+			chunk = new LineCleaning(file.lines, start,
+				Math.min(file.lines.size(), start + LINES_PER_CHUNK));
+			pool.execute(chunk);
+			pendingChunks.addLast(chunk);
 		}
+		
+		// Add the rest in order.
+		while(!pendingChunks.isEmpty())
+			addChunk(pendingChunks.removeFirst(), tree, value, unknownSymbols);
+		
+		reportUnknownSymbols(file.fileName, unknownSymbols);
 		return true;
 	}
 	
-	private final boolean readPrefixFile()
+	// Waits for the chunk to be cleaned and adds its word sequences to the tree.
+	private static final void addChunk(LineCleaning chunk, StringTree tree, byte value,
+		SymbolCounts unknownSymbols)
 	{
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.PREFIX_FILE);
-		if(br == null)
-		{
-			System.out.println("Could not open file: " + Config.PREFIX_FILE);
-			return false;
-		}
+		chunk.join();
+		for(int i = 0; i < chunk.wordSequences.length; i++)
+			tree.addValidWordSequence(chunk.wordSequences[i], value);
 		
-		ArrayList<String> prefixAndComplexityValueList = UFile.readLines(br);
-		if(prefixAndComplexityValueList == null)
-		{
-			System.out.println("Failed to read from: " + Config.PREFIX_FILE);
+		unknownSymbols.addAll(chunk.unknownSymbols);
+	}
+	
+	private final boolean readPrefixFile(ConfigFile file)
+	{
+		if(!file.reportErrors())
 			return false;
-		}
+		
+		ArrayList<String> prefixAndComplexityValueList = file.lines;
 		
 		// Process each prefix-value pair.
 		String prefixAndValueAsOneString;
 		String[] prefixAndValueSeparated;
+		LinkedHashMap<String, Byte> prefixLookupTable = new LinkedHashMap<String, Byte>();
+		SymbolCounts unknownSymbols = new SymbolCounts();
 		for(int i = 0; i < prefixAndComplexityValueList.size(); i++)
 		{
 			// The prefix to be processed.
@@ -237,7 +418,7 @@ public class ConfigReader
 				return false;
 			}
 			// Clean up the string.
-			String cleanedPrefix = Config.cleanString(prefixAndValueSeparated[0]);
+			String cleanedPrefix = normalisationProfile.cleanString(prefixAndValueSeparated[0]);
 			
 			// Put the (cleaned) key into the tree in "normal" left to right order!
 			prefixTree.addValidCharacterSequence_leftToRight(cleanedPrefix);
@@ -245,31 +426,27 @@ public class ConfigReader
 			// Also put the (cleaned) key into prefix lookup table.
 			prefixLookupTable.put(cleanedPrefix, valueAsByte);
 			
-			// TODO For testing.
-			Config.checkForUnknownSymbols(cleanedPrefix);
+			// Collect any characters that are not in the alphabet.
+			normalisationProfile.countUnknownSymbols(cleanedPrefix, unknownSymbols);
 		}
+		prefixTrie = share(new DoubleArrayTrie(prefixTree));
+		prefixTable = share(createTable(prefixLookupTable));
+		reportUnknownSymbols(Config.PREFIX_FILE, unknownSymbols);
 		return true;
 	}
 	
-	private final boolean readPostfixFile()
+	private final boolean readPostfixFile(ConfigFile file)
 	{
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.POSTFIX_FILE);
-		if(br == null)
-		{
-			System.out.println("Could not open file: " + Config.POSTFIX_FILE);
+		if(!file.reportErrors())
 			return false;
-		}
 		
-		ArrayList<String> postfixAndComplexityValueList = UFile.readLines(br);
-		if(postfixAndComplexityValueList == null)
-		{
-			System.out.println("Failed to read from: " + Config.POSTFIX_FILE);
-			return false;
-		}
+		ArrayList<String> postfixAndComplexityValueList = file.lines;
 		
 		// Process each postfix-value pair.
 		String postfixAndValueAsOneString;
 		String[] postfixAndValueSeparated;
+		LinkedHashMap<String, Byte> postfixLookupTable = new LinkedHashMap<String, Byte>();
+		SymbolCounts unknownSymbols = new SymbolCounts();
 		for(int i = 0; i < postfixAndComplexityValueList.size(); i++)
 		{
 			// The prefix to be processed.
@@ -289,7 +466,7 @@ public class ConfigReader
 				return false;
 			}
 			// Clean up the string.
-			String cleanedPostfix = Config.cleanString(postfixAndValueSeparated[0]);
+			String cleanedPostfix = normalisationProfile.cleanString(postfixAndValueSeparated[0]);
 			
 			// Put the (cleaned) key into the tree in "reverse" right to left order!
 			postfixTree.addValidCharacterSequence_rightToLeft(cleanedPostfix);
@@ -297,93 +474,149 @@ public class ConfigReader
 			// Also put the (cleaned) key into postfix lookup table.
 			postfixLookupTable.put(cleanedPostfix, valueAsByte);
 			
-			// TODO For testing.
-			Config.checkForUnknownSymbols(cleanedPostfix);
+			// Collect any characters that are not in the alphabet.
+			normalisationProfile.countUnknownSymbols(cleanedPostfix, unknownSymbols);
 		}
+		postfixTrie = share(new DoubleArrayTrie(postfixTree));
+		postfixTable = share(createTable(postfixLookupTable));
+		reportUnknownSymbols(Config.POSTFIX_FILE, unknownSymbols);
 		return true;
 	}
 	
-	private final boolean readNegatingVerbsFile()
+	private final boolean readSuperlativeFile()
+	{
+		farsiSuperlativePostfix = FARSI_SUPERLATIVE_POSTFIX;
+		return true;
+	}
+	
+	private final void reportUnknownSymbols(String fileName, SymbolCounts unknownSymbols)
+	{
+		// One warning per file rather than one per character.
+		if(!unknownSymbols.isEmpty())
+			System.out.println("Warning: Unknown characters in " + fileName + ": " + unknownSymbols);
+	}
+	
+	// ================================================================
+	// ===================== Private Inner Classes ====================
+	// ================================================================
+	// Reads the lines of a config file, which are neither cleaned nor added to the lexicon.
+	private final class ConfigFile extends RecursiveAction
 	{
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.NEGATING_VERBS_FILE);
-		if(br == null)
+		private static final long serialVersionUID = 1L;
+		
+		public final String fileName;
+		
+		// Null if the file could not be read.
+		public ArrayList<String> lines;
+		private String error;
+		
+		// Constructor.
+		public ConfigFile(String fileName)
 		{
-			System.out.println("Could not open file: " + Config.NEGATING_VERBS_FILE);
-			return false;
+			this.fileName = fileName;
 		}
 		
-		ArrayList<String> negatingVerbSequencesList = UFile.readLines(br);
-		if(negatingVerbSequencesList == null)
+		protected final void compute()
 		{
-			System.out.println("Failed to read from: " + Config.NEGATING_VERBS_FILE);
-			return false;
+			BufferedReader br = UFile.reader_force(configFolder, fileName);
+			if(br == null)
+			{
+				error = "Could not open file: " + fileName;
+				return;
+			}
+			
+			lines = UFile.readLines(br);
+			if(lines == null)
+				error = "Failed to read from: " + fileName;
 		}
 		
-		// Process each sequence of words.
-		String sequenceAsOneString;
-		String[] sequenceAsSeparateWords;
-		for(int i = 0; i < negatingVerbSequencesList.size(); i++)
+		// Returns false (after reporting why) if the file could not be read.
+		public final boolean reportErrors()
 		{
-			// The sequence to be processed.
-			sequenceAsOneString = negatingVerbSequencesList.get(i);
-			
-			// Clean up the string.
-			sequenceAsOneString = Config.cleanString(sequenceAsOneString);
-			
-			// Split into individual words on any whitespace boundary.
-			sequenceAsSeparateWords = sequenceAsOneString.split(UFile.ANY_WHITE_SPACE_REG_EX);
+			if(error == null)
+				return true;
 			
-			// Add the sequence to the tree.
-			negatingVerbSequenceTree.addValidWordSequence(sequenceAsSeparateWords);
-			
-			// TODO For testing.
-			Config.checkForUnknownSymbols(sequenceAsSeparateWords);
+			System.out.println(error);
+			return false;
 		}
-		return true;
 	}
 	
-	private final boolean readExceptionWordsFile()
+	// Cleans the lines of a word sequence file from start up to (excluding) end and splits them
+	// into words. Each line is dropped once it has been cleaned.
+	private final class LineCleaning extends RecursiveAction
 	{
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.EXCEPTION_WORDS_FILE);
-		if(br == null)
+		private static final long serialVersionUID = 1L;
+		
+		private final ArrayList<String> lines;
+		private final int start;
+		
+		// The words of each line and the characters in them that are not in the alphabet.
+		public final String[][] wordSequences;
+		public final SymbolCounts unknownSymbols;
+		
+		// Constructor.
+		public LineCleaning(ArrayList<String> lines, int start, int end)
 		{
-			System.out.println("Could not open file: " + Config.EXCEPTION_WORDS_FILE);
-			return false;
+			this.lines = lines;
+			this.start = start;
+			this.wordSequences = new String[end - start][];
+			this.unknownSymbols = new SymbolCounts();
 		}
 		
-		ArrayList<String> exceptionWordSequencesList = UFile.readLines(br);
-		if(exceptionWordSequencesList == null)
+		protected final void compute()
 		{
-			System.out.println("Failed to read from: " + Config.EXCEPTION_WORDS_FILE);
-			return false;
+			String sequenceAsOneString;
+			String[] sequenceAsSeparateWords;
+			for(int i = 0; i < wordSequences.length; i++)
+			{
+				// Clean up the string. Chunks never share a line, so it can be dropped here.
+				sequenceAsOneString = normalisationProfile.cleanString(lines.set(start + i, null));
+				
+				// Split into individual words on any whitespace boundary.
+				sequenceAsSeparateWords = sequenceAsOneString.split(UFile.ANY_WHITE_SPACE_REG_EX);
+				wordSequences[i] = sequenceAsSeparateWords;
+				
+				// Collect any characters that are not in the alphabet.
+				normalisationProfile.countUnknownSymbols(sequenceAsSeparateWords, unknownSymbols);
+			}
+		}
+	}
+	
+	// Makes a tree as small as possible once all sequences have been added.
+	private static final class TreeCompletion extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final StringTree tree;
+		
+		// Constructor.
+		public TreeCompletion(StringTree tree)
+		{
+			this.tree = tree;
 		}
 		
-		// Process each sequence of words.
-		String sequenceAsOneString;
-		String[] sequenceAsSeparateWords;
-		for(int i = 0; i < exceptionWordSequencesList.size(); i++)
+		protected final void compute()
 		{
-			// The sequence to be processed.
-			sequenceAsOneString = exceptionWordSequencesList.get(i);
-			
-			// Clean up the string.
-			sequenceAsOneString = Config.cleanString(sequenceAsOneString);
-			
-			// Split into individual words on any whitespace boundary.
-			sequenceAsSeparateWords = sequenceAsOneString.split(UFile.ANY_WHITE_SPACE_REG_EX);
-			
-			// Add the sequence to the tree.
-			exceptionWordsTree.addValidWordSequence(sequenceAsSeparateWords);
-			
-			// TODO For testing.
-			Config.checkForUnknownSymbols(sequenceAsSeparateWords);
+			completeTree(tree);
 		}
-		return true;
 	}
 	
-	private final boolean readSuperlativeFile()
+	// Runs the given actions at the same time and waits for all of them.
+	private static final class ParallelActions extends RecursiveAction
 	{
-		farsiSuperlativePostfix = FARSI_SUPERLATIVE_POSTFIX;
-		return true;
+		private static final long serialVersionUID = 1L;
+		
+		private final RecursiveAction[] actions;
+		
+		// Constructor.
+		public ParallelActions(RecursiveAction[] actions)
+		{
+			this.actions = actions;
+		}
+		
+		protected final void compute()
+		{
+			invokeAll(actions);
+		}
 	}
 }
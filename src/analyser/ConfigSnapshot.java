@@ -0,0 +1,400 @@
+package analyser;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import main.Config;
+import dataStructures.DoubleArrayTrie;
+import dataStructures.PerfectHashTable;
+
+/*
+ * A compiled lexicon: every structure a ConfigReader builds from the config files, written to one
+ * binary file so the next start can load it instead of reading, cleaning and adding every line
+ * again. The snapshot is memory-mapped and its arrays are copied out in bulk.
+ * 
+ * The header records the format version, whether the word sequence trees are encoded succinctly
+ * and the length and CRC32 of each source file. A snapshot is only used if all of these match,
+ * otherwise the lexicon is built from the source files and a new snapshot written. The content
+ * has its own CRC32 (at the end of the file), so a damaged snapshot is rebuilt as well.
+ */
+public final class ConfigSnapshot
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int MAGIC = 0x50414C58;
+	
+	// Must be increased whenever anything written to the snapshot changes.
+	private static final int FORMAT_VERSION = 4;
+	
+	// Every file the lexicon depends on. The alphabet and substitutions (which change how it is
+	// cleaned) are those of the normalisation profile, which may be in a different folder.
+	private static final String[] PROFILE_FILES = new String[] {Config.ALPHABET_FILE,
+		Config.SUBSTITUTION_FILE};
+	private static final String[] LEXICON_FILES = new String[] {Config.LC_FILE, Config.HC_FILE,
+		Config.PREFIX_FILE, Config.POSTFIX_FILE, Config.NEGATING_VERBS_FILE,
+		Config.EXCEPTION_WORDS_FILE};
+	
+	private static final int BUFFER_SIZE = 8192;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// The length and CRC32 of each source file, or null if one of them cannot be read.
+	public static final long[] checksumSources(String configFolder, String profileFolder)
+	{
+		long[] checksums = new long[2 * (PROFILE_FILES.length + LEXICON_FILES.length)];
+		if(!checksumFiles(profileFolder, PROFILE_FILES, checksums, 0)
+			|| !checksumFiles(configFolder, LEXICON_FILES, checksums, 2 * PROFILE_FILES.length))
+		{
+			return null;
+		}
+		return checksums;
+	}
+	
+	public static final boolean isSourceFile(String fileName)
+	{
+		return contains(PROFILE_FILES, fileName) || contains(LEXICON_FILES, fileName);
+	}
+	
+	// Identifies the lexicon built from source files with the given checksums (eight hex digits).
+	public static final String getVersion(long[] sourceChecksums)
+	{
+		CRC32 crc = new CRC32();
+		for(int i = 0; i < sourceChecksums.length; i++)
+		{
+			for(int shift = 56; shift >= 0; shift -= 8)
+				crc.update((int)(sourceChecksums[i] >>> shift));
+		}
+		return String.format("%08x", crc.getValue());
+	}
+	
+	// Identifies the content of some of the lexicon files (and of the profile they are cleaned
+	// with) by their checksums among those of checksumSources. What is read from files with the
+	// same key is the same.
+	public static final String getSourcesKey(long[] sourceChecksums, String[] fileNames)
+	{
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < PROFILE_FILES.length; i++)
+			appendChecksum(sb, PROFILE_FILES[i], sourceChecksums, 2 * i);
+		for(int i = 0; i < LEXICON_FILES.length; i++)
+		{
+			if(contains(fileNames, LEXICON_FILES[i]))
+			{
+				appendChecksum(sb, LEXICON_FILES[i], sourceChecksums,
+					2 * (PROFILE_FILES.length + i));
+			}
+		}
+		return sb.toString();
+	}
+	
+	// Returns the snapshot in the given folder if it is intact and was compiled from source files
+	// with the given checksums. Returns null if there is none or it is out of date.
+	public static final ConfigSnapshot open(String configFolder, long[] sourceChecksums)
+	{
+		File file = new File(configFolder, Config.LEXICON_SNAPSHOT_FILE);
+		if(!file.isFile())
+			return null;
+		
+		ByteBuffer buffer = map(file);
+		if(buffer == null)
+		{
+			System.out.println("Warning: Could not read " + Config.LEXICON_SNAPSHOT_FILE);
+			return null;
+		}
+		
+		// The header.
+		try
+		{
+			if(buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+				|| buffer.get() != succinctFlag() || buffer.getInt() != sourceChecksums.length)
+			{
+				System.out.println(Config.LEXICON_SNAPSHOT_FILE + " is out of date.");
+				return null;
+			}
+			for(int i = 0; i < sourceChecksums.length; i++)
+			{
+				if(buffer.getLong() != sourceChecksums[i])
+				{
+					System.out.println(Config.LEXICON_SNAPSHOT_FILE + " is out of date.");
+					return null;
+				}
+			}
+			
+			// The content.
+			int end = buffer.limit() - 8;
+			long expectedChecksum = buffer.getLong(end);
+			buffer.limit(end);
+			if(checksum(buffer) != expectedChecksum)
+			{
+				System.out.println("Warning: " + Config.LEXICON_SNAPSHOT_FILE + " is damaged!");
+				return null;
+			}
+		}
+		catch(RuntimeException e)
+		{
+			// Too short to even hold a header.
+			System.out.println("Warning: " + Config.LEXICON_SNAPSHOT_FILE + " is damaged!");
+			return null;
+		}
+		return new ConfigSnapshot(buffer);
+	}
+	
+	// Writes the lexicon of a ConfigReader that has been set up from source files with the given
+	// checksums. The snapshot is written to a temporary file of its own first and then moved into
+	// place, so it is never seen half written, even by other processes writing it at the same
+	// time.
+	public static final boolean write(ConfigReader configReader, String configFolder,
+		long[] sourceChecksums)
+	{
+		File file = new File(configFolder, Config.LEXICON_SNAPSHOT_FILE);
+		File temporaryFile = null;
+		boolean isMoved = false;
+		try
+		{
+			temporaryFile = File.createTempFile(Config.LEXICON_SNAPSHOT_FILE, ".tmp",
+				new File(configFolder));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temporaryFile), BUFFER_SIZE));
+			try
+			{
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeByte(succinctFlag());
+				out.writeInt(sourceChecksums.length);
+				for(int i = 0; i < sourceChecksums.length; i++)
+					out.writeLong(sourceChecksums[i]);
+				
+				// The content goes through the checksum as well.
+				CRC32 crc = new CRC32();
+				DataOutputStream checkedOut = new DataOutputStream(
+					new CheckedOutputStream(out, crc));
+				writeContent(configReader, checkedOut);
+				checkedOut.flush();
+				out.writeLong(crc.getValue());
+			}
+			finally
+			{
+				out.close();
+			}
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+			isMoved = true;
+			return true;
+		}
+		catch(IOException e)
+		{
+			System.out.println("Warning: Could not write " + Config.LEXICON_SNAPSHOT_FILE + ": "
+				+ e.getMessage());
+			return false;
+		}
+		finally
+		{
+			// Don't leave a half written snapshot behind, whatever went wrong.
+			if(temporaryFile != null && !isMoved)
+				temporaryFile.delete();
+		}
+	}
+	
+	private static final void writeContent(ConfigReader configReader, DataOutputStream out)
+		throws IOException
+	{
+		// The pre- and postfixes with their complexities.
+		configReader.prefixTable.write(out);
+		configReader.postfixTable.write(out);
+		configReader.prefixTrie.write(out);
+		configReader.postfixTrie.write(out);
+		
+		// The words first, so they get the same IDs when they are read back.
+		configReader.sequenceWords.write(out);
+		configReader.complexityWordSequenceTree.write(out);
+		configReader.exceptionWordsTree.write(out);
+		configReader.negatingVerbSequenceTree.write(out);
+	}
+	
+	private static final boolean checksumFiles(String folder, String[] fileNames, long[] checksums,
+		int offset)
+	{
+		File file;
+		for(int i = 0; i < fileNames.length; i++)
+		{
+			file = new File(folder, fileNames[i]);
+			checksums[offset + 2 * i] = file.length();
+			checksums[offset + 2 * i + 1] = checksum(file);
+			if(checksums[offset + 2 * i + 1] < 0)
+				return false;
+		}
+		return true;
+	}
+	
+	// The name, length and checksum of a file.
+	private static final void appendChecksum(StringBuilder sb, String fileName,
+		long[] sourceChecksums, int offset)
+	{
+		sb.append(fileName).append(' ').append(sourceChecksums[offset]).append(' ')
+			.append(Long.toHexString(sourceChecksums[offset + 1])).append(' ');
+	}
+	
+	private static final boolean contains(String[] fileNames, String fileName)
+	{
+		for(int i = 0; i < fileNames.length; i++)
+		{
+			if(fileNames[i].equals(fileName))
+				return true;
+		}
+		return false;
+	}
+	
+	private static final byte succinctFlag()
+	{
+		return Config.SUCCINCT_WORD_SEQUENCE_TREES ? (byte)1 : (byte)0;
+	}
+	
+	// Returns null if the file cannot be mapped.
+	private static final ByteBuffer map(File file)
+	{
+		RandomAccessFile randomAccessFile = null;
+		try
+		{
+			randomAccessFile = new RandomAccessFile(file, "r");
+			FileChannel channel = randomAccessFile.getChannel();
+			if(channel.size() > Integer.MAX_VALUE)
+				return null;
+			
+			// The mapping stays valid after the file has been closed.
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch(IOException e)
+		{
+			return null;
+		}
+		finally
+		{
+			if(randomAccessFile != null)
+			{
+				try
+				{
+					randomAccessFile.close();
+				}
+				catch(IOException e)
+				{
+					// Can't do anything about this, we made best efforts.
+				}
+			}
+		}
+	}
+	
+	// The CRC32 of the file or -1 if it cannot be read.
+	private static final long checksum(File file)
+	{
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int n;
+		try
+		{
+			InputStream in = new FileInputStream(file);
+			try
+			{
+				while((n = in.read(buffer)) > 0)
+					crc.update(buffer, 0, n);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch(IOException e)
+		{
+			return -1;
+		}
+		return crc.getValue();
+	}
+	
+	// The CRC32 of the bytes from the position to the limit of the buffer (which is unchanged).
+	private static final long checksum(ByteBuffer buffer)
+	{
+		ByteBuffer bytes = buffer.duplicate();
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[BUFFER_SIZE];
+		int n;
+		while(bytes.hasRemaining())
+		{
+			n = Math.min(bytes.remaining(), chunk.length);
+			bytes.get(chunk, 0, n);
+			crc.update(chunk, 0, n);
+		}
+		return crc.getValue();
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	// The content of the snapshot, positioned at its start.
+	private final ByteBuffer content;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	private ConfigSnapshot(ByteBuffer content)
+	{
+		this.content = content;
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Fills a new ConfigReader (on which setup has not been called) with the lexicon. Off-heap the
+	// word table and word sequence trees are searched within the snapshot.
+	public final boolean readInto(ConfigReader configReader, boolean offHeap)
+	{
+		ByteBuffer in = content.duplicate();
+		try
+		{
+			configReader.prefixTable = configReader.share(new PerfectHashTable(in));
+			configReader.postfixTable = configReader.share(new PerfectHashTable(in));
+			configReader.prefixTrie = configReader.share(new DoubleArrayTrie(in));
+			configReader.postfixTrie = configReader.share(new DoubleArrayTrie(in));
+			
+			return configReader.sequenceWords.read(in, offHeap)
+				&& configReader.complexityWordSequenceTree.read(in, offHeap)
+				&& configReader.exceptionWordsTree.read(in, offHeap)
+				&& configReader.negatingVerbSequenceTree.read(in, offHeap);
+		}
+		catch(RuntimeException e)
+		{
+			// The checksums matched, so the format must have changed without FORMAT_VERSION.
+			System.out.println("Error: Could not read " + Config.LEXICON_SNAPSHOT_FILE + ": " + e);
+			return false;
+		}
+	}
+}
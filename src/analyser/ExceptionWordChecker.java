@@ -19,6 +19,8 @@ package analyser;
  * or have any questions.
  */
 
+import dataStructures.TokenisedSentence;
+
 public final class ExceptionWordChecker
 {
 	// ================================================================
@@ -45,7 +47,7 @@ public final class ExceptionWordChecker
 	// ================================================================
 	// ======================== Public Methods ========================
 	// ================================================================
-	public final int check(String[] tokenisedSentence, int i)
+	public final int check(TokenisedSentence tokenisedSentence, int i)
 	{
 		/*
 		 * Note:
@@ -19,131 +19,348 @@ package analyser;
  * or have any questions.
  */
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import main.Config;
+import main.NormalisationProfile;
 import dataStructures.FileSummary;
 import dataStructures.SentenceSummary;
+import dataStructures.SymbolCounts;
 
 public final class FileAnalyser
 {
 	// ================================================================
 	// ======================== Static Fields =========================
 	// ================================================================
+	// Analyses chunks of sentences in parallel. Null if everything is done on the calling thread.
+	// Shared by all file analysers.
+	private static final ForkJoinPool ANALYSIS_POOL = createAnalysisPool();
 	
 	// ================================================================
 	// ======================== Static Methods ========================
 	// ================================================================
+	private static final ForkJoinPool createAnalysisPool()
+	{
+		int nrThreads = Config.NR_ANALYSIS_THREADS;
+		if(nrThreads <= 0)
+			nrThreads = Runtime.getRuntime().availableProcessors();
+		
+		if(nrThreads == 1)
+			return null;
+		
+		return new ForkJoinPool(nrThreads);
+	}
 	
 	// ================================================================
 	// ============================ Fields ============================
 	// ================================================================
-	private final SentenceAnalyser sentenceAnalyser;
+	// Read once per file, so every sentence of a file is analysed with the same lexicons even if a
+	// new one is set in the meantime. The array is replaced rather than changed.
+	private volatile Lexicon[] lexicons;
+	private double minPersianLetterShare;
+	private long maxAnalysisNanos;
 	
 	// ================================================================
 	// ======================== Constructor(s) ========================
 	// ================================================================
-	public FileAnalyser(ConfigReader configReader)
+	public FileAnalyser(NormalisationProfile normalisationProfile, ConfigReader configReader)
+	{
+		this(new Lexicon(normalisationProfile, configReader));
+	}
+	
+	public FileAnalyser(Lexicon lexicon)
+	{
+		this(new Lexicon[] {lexicon});
+	}
+	
+	// Each file is cleaned and split into tokens only once, using the normalisation profile of the
+	// first lexicon, and the same tokens are then analysed with every lexicon.
+	public FileAnalyser(Lexicon[] lexicons)
 	{
-		this.sentenceAnalyser = new SentenceAnalyser(configReader);
+		this.lexicons = lexicons.clone();
+		this.minPersianLetterShare = Config.MIN_PERSIAN_LETTER_SHARE;
+		setMaxAnalysisMillis(Config.MAX_ANALYSIS_MILLIS_PER_FILE);
 	}
 	
 	// ================================================================
 	// ======================== Public Methods ========================
 	// ================================================================
-	public final FileSummary analyseFile(BufferedReader fileReader)
+	// The first lexicon.
+	public final Lexicon getLexicon()
 	{
-		// Get the whole file as one long string.
-		String wholeFileAsString = wholeFileAsString(fileReader);
-		
-		// Could not read file.
-		if(wholeFileAsString == null)
-			return null;
-		
-		// Standardises characters you split on. This obviously has to be done before the split
-		// i.e. it cannot wait until you clean up the individual sentences.
-		wholeFileAsString = Config.standardisePunctuation(wholeFileAsString);
-		
-		// Split the string representing the whole file at every sentence-ending punctuation symbol.
-		String[] originalSentenceArray = wholeFileAsString.split("(?<=[.!?;])\\s*");
-		
-		// Split the string representing the whole file into sentences.
-		ArrayList<String[]> tokenisedSentences = tokeniseSentences(originalSentenceArray);
-		
-		// Now perform the analysis.
-		return analyseAllSentences(originalSentenceArray, tokenisedSentences);
+		return lexicons[0];
+	}
+	
+	public final int getNrLexicons()
+	{
+		return lexicons.length;
+	}
+	
+	// A copy, so it can't be used to change the lexicons.
+	public final Lexicon[] getLexicons()
+	{
+		return lexicons.clone();
+	}
+	
+	// Replaces all lexicons at once. There must be as many as before, in the same order, and they
+	// must share their normalisation profile. Files analysed from now on use the given lexicons,
+	// files that are already being analysed finish with the ones they started with. Can be called
+	// from any thread, but only one thread may replace lexicons.
+	public final void setLexicons(Lexicon[] lexicons)
+	{
+		this.lexicons = lexicons.clone();
+	}
+	
+	// Sentences with a smaller share of Persian letters are skipped. Zero analyses everything.
+	public final void setMinPersianLetterShare(double minPersianLetterShare)
+	{
+		this.minPersianLetterShare = minPersianLetterShare;
+	}
+	
+	// The analysis of a file stops after this long and the file summary is flagged as timed out.
+	// Zero means no limit.
+	public final void setMaxAnalysisMillis(long maxAnalysisMillis)
+	{
+		this.maxAnalysisNanos = maxAnalysisMillis * 1000000L;
+	}
+	
+	// The summary for the first lexicon.
+	public final FileSummary analyseFile(Reader fileReader)
+	{
+		return getFirst(analyseFileWithEachLexicon(fileReader));
+	}
+	
+	public final FileSummary analyseSentences(SentenceSource sentenceSource)
+	{
+		return getFirst(analyseSentencesWithEachLexicon(sentenceSource));
+	}
+	
+	// The summary for the given lexicon rather than those of this analyser, e.g. one picked per
+	// file from a LexiconRegistry.
+	public final FileSummary analyseFile(Reader fileReader, Lexicon lexicon)
+	{
+		return analyseSentences(new SentenceSegmenter(fileReader), lexicon);
+	}
+	
+	public final FileSummary analyseSentences(SentenceSource sentenceSource, Lexicon lexicon)
+	{
+		return getFirst(analyseSentences(sentenceSource, new Lexicon[] {lexicon}));
+	}
+	
+	public final FileSummary[] analyseFileWithEachLexicon(Reader fileReader)
+	{
+		// Splits the file into sentences as it is being read, so the whole file never has to be
+		// held in memory at once.
+		return analyseSentencesWithEachLexicon(new SentenceSegmenter(fileReader));
+	}
+	
+	public final FileSummary[] analyseSentencesWithEachLexicon(SentenceSource sentenceSource)
+	{
+		return analyseSentences(sentenceSource, lexicons);
 	}
 	
 	// ================================================================
 	// ======================= Private Methods ========================
 	// ================================================================
-	private final String wholeFileAsString(BufferedReader fileReader)
+	// Returns one summary per lexicon, or null if the sentences could not be read. Large files are
+	// split into chunks of consecutive sentences that are analysed in parallel. The results are
+	// put together in the original order, so they are the same as when analysing one sentence
+	// after the other. If the time limit is reached, only the sentences before that point are in
+	// the summaries.
+	private final FileSummary[] analyseSentences(SentenceSource sentenceSource,
+		Lexicon[] fileLexicons)
 	{
-		StringBuilder sb = new StringBuilder();
-		String line;
+		long startTime = System.nanoTime();
+		FileSummary[] fileSummaries = new FileSummary[fileLexicons.length];
+		for(int i = 0; i < fileLexicons.length; i++)
+		{
+			fileSummaries[i] = new FileSummary(new ArrayList<SentenceSummary>(),
+				new SymbolCounts());
+			fileSummaries[i].lexiconVersion = fileLexicons[i].getVersion();
+		}
+		
+		// Chunks that are being analysed, the oldest first.
+		ArrayDeque<ChunkAnalysis> pendingChunks = new ArrayDeque<ChunkAnalysis>();
+		int maxNrPendingChunks = ANALYSIS_POOL == null ? 1 : 2 * ANALYSIS_POOL.getParallelism();
 		
-		// Read each line until the end of the file is reached.
+		ChunkAnalysis chunk;
+		boolean stoppedReading = false;
 		try
 		{
-			while((line = fileReader.readLine()) != null)
+			while((chunk = readChunk(sentenceSource, fileLexicons, startTime)) != null)
 			{
-				sb.append(line);
-				sb.append(" ");
+				// There are sentences left, but no time to analyse them.
+				if(isPastTimeLimit(startTime))
+				{
+					stoppedReading = true;
+					break;
+				}
+				
+				// Don't read further ahead than needed to keep all threads busy.
+				if(pendingChunks.size() == maxNrPendingChunks)
+					finishChunk(pendingChunks.removeFirst(), fileSummaries);
+				
+				// Without a pool analyse the chunk right here.
+				if(ANALYSIS_POOL == null)
+					chunk.invoke();
+				else
+					ANALYSIS_POOL.execute(chunk);
+				pendingChunks.addLast(chunk);
 			}
 		}
 		catch(IOException e)
 		{
+			// Could not read file. The chunks still running are of no use.
+			for(ChunkAnalysis pendingChunk : pendingChunks)
+				pendingChunk.cancel(false);
 			return null;
 		}
-		return sb.toString();
+		
+		// Collect the rest of the results in order.
+		while(!pendingChunks.isEmpty())
+			finishChunk(pendingChunks.removeFirst(), fileSummaries);
+		
+		// Stopped reading before the end. A chunk that gave up on its sentences has already
+		// flagged the summaries.
+		if(stoppedReading)
+		{
+			for(FileSummary fileSummary : fileSummaries)
+				fileSummary.timedOut = true;
+		}
+		return fileSummaries;
 	}
 	
-	private final ArrayList<String[]> tokeniseSentences(String[] originalSentenceArray)
+	private static final FileSummary getFirst(FileSummary[] fileSummaries)
 	{
-		// A list of all sentences as arrays of tokens (words).
-		ArrayList<String[]> tokenisedSentences = new ArrayList<String[]>();
-		
-		for(String originalSentence : originalSentenceArray)
+		return fileSummaries == null ? null : fileSummaries[0];
+	}
+	
+	// Waits for the chunk to be analysed and adds its results to the file summaries. Once a chunk
+	// has timed out the results of the chunks after it are dropped, so the summaries cover the
+	// start of the file without any gaps.
+	private static final void finishChunk(ChunkAnalysis chunk, FileSummary[] fileSummaries)
+	{
+		chunk.join();
+		if(!fileSummaries[0].timedOut)
+			chunk.addTo(fileSummaries);
+	}
+	
+	private final boolean isPastTimeLimit(long startTime)
+	{
+		return maxAnalysisNanos > 0 && System.nanoTime() - startTime > maxAnalysisNanos;
+	}
+	
+	// Returns null if there are no more sentences.
+	private final ChunkAnalysis readChunk(SentenceSource sentenceSource, Lexicon[] fileLexicons,
+		long startTime) throws IOException
+	{
+		ArrayList<String> sentences = new ArrayList<String>();
+		String sentence;
+		while(sentences.size() < Config.SENTENCES_PER_CHUNK
+			&& (sentence = sentenceSource.nextSentence()) != null)
 		{
-			// Standardise the source sentence. This removes any unwanted characters and may
-			// substitute certain characters with others (e.g. There is sometimes a Farsi and an
-			// Arabic version of the same letter. In order to be able to match these letters we
-			// consistently substitute one for the other such that the strings that are compared
-			// all use the same script.
-			originalSentence = Config.standardiseSourceSentence(originalSentence);
-			
-			// Split the sentence at any and all white space characters.
-			String[] sentenceAsTokenArray = originalSentence.split("\\s+");
-			
-			// A second "per-word" cleaning may be required.
-			for(int i = 0; i < sentenceAsTokenArray.length; i++)
-				sentenceAsTokenArray[i] = Config.standardiseSourceToken(sentenceAsTokenArray[i]);
-			
-			// Add the word array to the list of sentences.
-			tokenisedSentences.add(sentenceAsTokenArray);
+			sentences.add(sentence);
 		}
-		return tokenisedSentences;
+		
+		if(sentences.isEmpty())
+			return null;
+		
+		return new ChunkAnalysis(sentences, fileLexicons, startTime);
+	}
+	
+	private final boolean isPersianSentence(NormalisationProfile normalisationProfile,
+		String originalSentence)
+	{
+		// Nothing to filter.
+		if(minPersianLetterShare <= 0.0)
+			return true;
+		
+		return normalisationProfile.persianLetterShare(originalSentence) >= minPersianLetterShare;
 	}
 	
-	private final FileSummary analyseAllSentences(String[] originalSentenceArray,
-		ArrayList<String[]> tokenisedSentences)
+	// ---- Private inner class ----
+	// Analyses consecutive sentences of a file. Only reads shared data, so several chunks can be
+	// analysed at the same time.
+	private final class ChunkAnalysis extends RecursiveAction
 	{
-		ArrayList<SentenceSummary> sentenceSummaries = new ArrayList<SentenceSummary>();
+		private static final long serialVersionUID = 1L;
 		
-		int n = originalSentenceArray.length;
-		String originalSentence;
-		String[] tokenisedSentence;
-		SentenceSummary sentenceSummary;
+		private final ArrayList<String> sentences;
+		private final Lexicon[] lexicons;
+		private final long startTime;
 		
-		for(int i = 0; i < n; i++)
+		// The summaries of the sentences for each lexicon.
+		private final ArrayList<ArrayList<SentenceSummary>> sentenceSummaries;
+		private final SymbolCounts unknownSymbols;
+		private int nrSkippedSentences;
+		private boolean timedOut;
+		
+		// Constructor.
+		public ChunkAnalysis(ArrayList<String> sentences, Lexicon[] lexicons, long startTime)
+		{
+			this.sentences = sentences;
+			this.lexicons = lexicons;
+			this.startTime = startTime;
+			this.sentenceSummaries = new ArrayList<ArrayList<SentenceSummary>>(lexicons.length);
+			for(int i = 0; i < lexicons.length; i++)
+				sentenceSummaries.add(new ArrayList<SentenceSummary>(sentences.size()));
+			this.unknownSymbols = new SymbolCounts();
+			this.nrSkippedSentences = 0;
+			this.timedOut = false;
+		}
+		
+		protected final void compute()
 		{
-			originalSentence = originalSentenceArray[i];
-			tokenisedSentence = tokenisedSentences.get(i);
+			// Reused for every sentence (and every chunk) analysed by the same thread.
+			AnalysisContext context = AnalysisContext.get();
+			NormalisationProfile normalisationProfile = lexicons[0].normalisationProfile;
 			
-			sentenceSummary = sentenceAnalyser.analyseSentence(originalSentence, tokenisedSentence);
-			sentenceSummaries.add(sentenceSummary);
+			for(String originalSentence : sentences)
+			{
+				// Give up on the rest of the file.
+				if(isPastTimeLimit(startTime))
+				{
+					timedOut = true;
+					return;
+				}
+				
+				// Leave out sentences that are not (mostly) written in Persian. They are only counted.
+				if(!isPersianSentence(normalisationProfile, originalSentence))
+				{
+					nrSkippedSentences++;
+					continue;
+				}
+				
+				// Clean the sentence and split it into tokens (words).
+				normalisationProfile.tokenise(originalSentence, context.tokenisedSentence);
+				
+				// Count the characters that are not part of the alphabet.
+				normalisationProfile.countUnknownSymbols(context.tokenisedSentence, unknownSymbols);
+				
+				// Now perform the analysis, with each lexicon on the same tokens.
+				for(int i = 0; i < lexicons.length; i++)
+				{
+					sentenceSummaries.get(i).add(
+						lexicons[i].sentenceAnalyser.analyseSentence(originalSentence, context));
+				}
+			}
+		}
+		
+		// Appends the results of this chunk to those of the chunks before it (one summary per
+		// lexicon).
+		public final void addTo(FileSummary[] fileSummaries)
+		{
+			for(int i = 0; i < fileSummaries.length; i++)
+			{
+				fileSummaries[i].sentenceSummaries.addAll(sentenceSummaries.get(i));
+				fileSummaries[i].unknownSymbols.addAll(unknownSymbols);
+				fileSummaries[i].nrSkippedSentences += nrSkippedSentences;
+				fileSummaries[i].timedOut = timedOut;
+			}
 		}
-		return new FileSummary(sentenceSummaries);
 	}
 }
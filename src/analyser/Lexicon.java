@@ -0,0 +1,115 @@
+package analyser;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import main.Config;
+import main.NormalisationProfile;
+import dataStructures.SentenceSummary;
+
+/*
+ * Everything read from the config folder: the rules for cleaning text and the lexicon itself,
+ * along with the sentence analyser that uses them. A lexicon is never changed once it has been
+ * created. To use a different one it is replaced as a whole, so work that has started on the old
+ * lexicon can finish on it while new work uses the new one.
+ */
+public final class Lexicon
+{
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// Reads everything from the config folder. All methods return null on failure.
+	public static final Lexicon read()
+	{
+		NormalisationProfile normalisationProfile = NormalisationProfile.read(Config.CONFIG_FOLDER);
+		if(normalisationProfile == null)
+		{
+			System.out.println("Error: Could not read the alphabet or the substitution file!");
+			return null;
+		}
+		
+		return read(Config.CONFIG_FOLDER, normalisationProfile);
+	}
+	
+	// Reads the lexicon of each of the given folders, all cleaned with the rules of the profile
+	// folder (which are read once). Returns null if any of them cannot be read.
+	public static final Lexicon[] read(String[] configFolders, String profileFolder)
+	{
+		NormalisationProfile normalisationProfile = NormalisationProfile.read(profileFolder);
+		if(normalisationProfile == null)
+		{
+			System.out.println("Error: Could not read the alphabet or the substitution file!");
+			return null;
+		}
+		
+		Lexicon[] lexicons = new Lexicon[configFolders.length];
+		for(int i = 0; i < configFolders.length; i++)
+		{
+			lexicons[i] = read(configFolders[i], normalisationProfile);
+			if(lexicons[i] == null)
+				return null;
+		}
+		return lexicons;
+	}
+	
+	// Reads the lexicon files from the given folder, cleaning them with the given rules. Lexicons
+	// that are compared with each other have to share their normalisation profile.
+	public static final Lexicon read(String configFolder, NormalisationProfile normalisationProfile)
+	{
+		ConfigReader configReader = ConfigReader.create(normalisationProfile, configFolder);
+		if(configReader == null)
+		{
+			System.out.println("Error: Could not create a ConfigReader for " + configFolder + "!");
+			return null;
+		}
+		return new Lexicon(normalisationProfile, configReader);
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	public final NormalisationProfile normalisationProfile;
+	public final ConfigReader configReader;
+	final SentenceAnalyser sentenceAnalyser;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	// The config reader must have been set up.
+	public Lexicon(NormalisationProfile normalisationProfile, ConfigReader configReader)
+	{
+		this.normalisationProfile = normalisationProfile;
+		this.configReader = configReader;
+		this.sentenceAnalyser = new SentenceAnalyser(configReader);
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	public final String getVersion()
+	{
+		return configReader.lexiconVersion;
+	}
+	
+	// The sentence must already have been tokenised into the context's tokenised sentence.
+	public final SentenceSummary analyseSentence(String originalSentence, AnalysisContext context)
+	{
+		return sentenceAnalyser.analyseSentence(originalSentence, context);
+	}
+}
@@ -0,0 +1,195 @@
+package analyser;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import main.NormalisationProfile;
+import dataStructures.DoubleArrayTrie;
+import dataStructures.PerfectHashTable;
+import dataStructures.StringTree;
+import dataStructures.WordTable;
+
+/*
+ * Lexicons for several domains (e.g. legal, medical and news), each loaded from a config folder of
+ * its own under a name, so the one to analyse a file with can be picked per file. They all clean
+ * text with the same normalisation profile.
+ * 
+ * What the lexicons have in common is only held once: every word is the same String in all of
+ * them, and prefix and postfix lookups that are equal (e.g. read from the same files) are shared.
+ * So are the nodes of word sequence trees read from files with the same checksums (and cleaned
+ * with the same profile), as long as their words have the same IDs in both word tables. This is
+ * usually the case for the negating verbs and exception words, which are added to the word table
+ * first. Each lexicon keeps its own word table, so the tokens of a sentence are only looked up
+ * once for all of its trees. All of this is done while a lexicon is being built, so it is never
+ * changed once it has been loaded.
+ */
+public final class LexiconRegistry
+{
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	public final NormalisationProfile normalisationProfile;
+	
+	// Can be searched while another lexicon is being loaded.
+	private final ConcurrentHashMap<String, Lexicon> lexicons;
+	private final ArrayList<String> names;
+	
+	// The prefix and postfix lookups of the loaded lexicons, each mapped to itself. Rebuilt after
+	// every load, so those of replaced lexicons don't stay reachable.
+	private final HashMap<PerfectHashTable, PerfectHashTable> sharedTables;
+	private final HashMap<DoubleArrayTrie, DoubleArrayTrie> sharedTries;
+	
+	// The word sequence trees of the loaded lexicons by the files they were read from (see
+	// ConfigReader.getWordSequenceKeys). Only the loaded lexicons are added (after every load), as
+	// a lexicon that is being built may still be replaced by one read off-heap.
+	private final HashMap<String, StringTree> sharedTrees;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	public LexiconRegistry(NormalisationProfile normalisationProfile)
+	{
+		this.normalisationProfile = normalisationProfile;
+		this.lexicons = new ConcurrentHashMap<String, Lexicon>();
+		this.names = new ArrayList<String>();
+		this.sharedTables = new HashMap<PerfectHashTable, PerfectHashTable>();
+		this.sharedTries = new HashMap<DoubleArrayTrie, DoubleArrayTrie>();
+		this.sharedTrees = new HashMap<String, StringTree>();
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Reads the lexicon files from the given folder and makes the lexicon available under the
+	// given name, replacing any lexicon loaded under that name before. Files that are already
+	// being analysed with the old one finish with it. Returns false on failure.
+	public final synchronized boolean load(String name, String configFolder)
+	{
+		ConfigReader configReader = ConfigReader.create(normalisationProfile, configFolder, this);
+		if(configReader != null && lexicons.put(name,
+			new Lexicon(normalisationProfile, configReader)) == null)
+		{
+			names.add(name);
+		}
+		
+		// Drop the lookups of the lexicon that was replaced (or of one that failed to load).
+		rebuildSharedComponents();
+		
+		if(configReader == null)
+		{
+			System.out.println("Error: Could not load lexicon " + name + " from " + configFolder
+				+ "!");
+			return false;
+		}
+		return true;
+	}
+	
+	// Returns null if no lexicon has been loaded under the given name.
+	public final Lexicon get(String name)
+	{
+		return lexicons.get(name);
+	}
+	
+	// In the order they were first loaded.
+	public final synchronized String[] getNames()
+	{
+		return names.toArray(new String[names.size()]);
+	}
+	
+	// Called while a lexicon is being built by load. Each returns the equal lookup of a loaded
+	// lexicon, or starts sharing the given one.
+	final synchronized PerfectHashTable share(PerfectHashTable table)
+	{
+		return share(sharedTables, table);
+	}
+	
+	final synchronized DoubleArrayTrie share(DoubleArrayTrie trie)
+	{
+		return share(sharedTries, trie);
+	}
+	
+	// Makes the words of a lexicon that is being built use the Strings of the loaded lexicons.
+	final synchronized void shareWords(WordTable sequenceWords)
+	{
+		for(Lexicon lexicon : lexicons.values())
+			sequenceWords.shareWords(lexicon.configReader.sequenceWords);
+	}
+	
+	// Makes the complete trees of a lexicon that is being built use the nodes of the trees of the
+	// loaded lexicons that were read from the same files, where the word IDs allow it.
+	final synchronized void shareTrees(ConfigReader configReader)
+	{
+		String[] keys = configReader.getWordSequenceKeys();
+		if(keys == null)
+			return;
+		
+		StringTree[] trees = configReader.getWordSequenceTrees();
+		StringTree sharedTree;
+		for(int i = 0; i < trees.length; i++)
+		{
+			sharedTree = sharedTrees.get(keys[i]);
+			if(sharedTree != null)
+				trees[i].shareNodes(sharedTree);
+		}
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	private final void rebuildSharedComponents()
+	{
+		sharedTables.clear();
+		sharedTries.clear();
+		sharedTrees.clear();
+		String[] keys;
+		StringTree[] trees;
+		for(Lexicon lexicon : lexicons.values())
+		{
+			share(sharedTables, lexicon.configReader.prefixTable);
+			share(sharedTables, lexicon.configReader.postfixTable);
+			share(sharedTries, lexicon.configReader.prefixTrie);
+			share(sharedTries, lexicon.configReader.postfixTrie);
+			
+			keys = lexicon.configReader.getWordSequenceKeys();
+			if(keys == null)
+				continue;
+			
+			trees = lexicon.configReader.getWordSequenceTrees();
+			for(int i = 0; i < trees.length; i++)
+			{
+				if(!sharedTrees.containsKey(keys[i]))
+					sharedTrees.put(keys[i], trees[i]);
+			}
+		}
+	}
+	
+	// Returns the equal component that is already shared, or starts sharing the given one.
+	private static final <T> T share(HashMap<T, T> sharedComponents, T component)
+	{
+		T sharedComponent = sharedComponents.get(component);
+		if(sharedComponent != null)
+			return sharedComponent;
+		
+		sharedComponents.put(component, component);
+		return component;
+	}
+}
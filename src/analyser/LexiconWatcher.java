@@ -0,0 +1,223 @@
+package analyser;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import main.Config;
+
+/*
+ * Watches the config folders of the file analyser's lexicons on a background thread. When any of
+ * the files they are built from changes, every lexicon is read again with one new normalisation
+ * profile and the whole set is handed to the file analyser, which uses it for every file it
+ * starts analysing afterwards. Nothing waits for the new lexicons to be built.
+ */
+public final class LexiconWatcher
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// Returns null (and warns the user) if the config folders cannot be watched.
+	public static final LexiconWatcher start(FileAnalyser fileAnalyser)
+	{
+		Lexicon[] lexicons = fileAnalyser.getLexicons();
+		String profileFolder = lexicons[0].normalisationProfile.configFolder;
+		String[] configFolders = new String[lexicons.length];
+		for(int i = 0; i < lexicons.length; i++)
+			configFolders[i] = lexicons[i].configReader.configFolder;
+		
+		try
+		{
+			WatchService watchService = FileSystems.getDefault().newWatchService();
+			
+			// The profile folder and each lexicon folder, but none of them twice.
+			HashSet<Path> watchedFolders = new HashSet<Path>();
+			watchedFolders.add(Paths.get(profileFolder).toAbsolutePath().normalize());
+			for(String configFolder : configFolders)
+				watchedFolders.add(Paths.get(configFolder).toAbsolutePath().normalize());
+			for(Path folder : watchedFolders)
+			{
+				folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			}
+			
+			LexiconWatcher lexiconWatcher = new LexiconWatcher(fileAnalyser, configFolders,
+				profileFolder, watchService);
+			lexiconWatcher.thread.start();
+			return lexiconWatcher;
+		}
+		catch(IOException e)
+		{
+			System.out.println("Warning: Cannot watch the config folders: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	// Takes the events of the key (and resets it). Returns true if any of them is about a file the
+	// lexicon is built from. Our own snapshot files don't count.
+	private static final boolean isSourceFileChanged(WatchKey key)
+	{
+		boolean isChanged = false;
+		for(WatchEvent<?> event : key.pollEvents())
+		{
+			// Events were lost, so any file may have changed.
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+				isChanged = true;
+			else if(ConfigSnapshot.isSourceFile(event.context().toString()))
+				isChanged = true;
+		}
+		key.reset();
+		return isChanged;
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	private final FileAnalyser fileAnalyser;
+	
+	// Those of the file analyser's lexicons, in the same order.
+	private final String[] configFolders;
+	private final String profileFolder;
+	
+	private final WatchService watchService;
+	private final Thread thread;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	private LexiconWatcher(FileAnalyser fileAnalyser, String[] configFolders,
+		String profileFolder, WatchService watchService)
+	{
+		this.fileAnalyser = fileAnalyser;
+		this.configFolders = configFolders;
+		this.profileFolder = profileFolder;
+		this.watchService = watchService;
+		this.thread = new Thread("Lexicon watcher")
+		{
+			public void run()
+			{
+				watch();
+			}
+		};
+		
+		// Don't keep the program running just for this.
+		thread.setDaemon(true);
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Lexicons that are being read when this is called are still handed to the file analyser.
+	public final void stop()
+	{
+		try
+		{
+			watchService.close();
+		}
+		catch(IOException e)
+		{
+			// Can't do anything about this, we made best efforts.
+		}
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	private final void watch()
+	{
+		try
+		{
+			while(true)
+			{
+				// Wait for a config file to change.
+				if(!isSourceFileChanged(watchService.take()))
+					continue;
+				
+				// Files are often saved in several steps, or several files are changed together.
+				// Wait until nothing has changed for a while.
+				WatchKey key;
+				while((key = watchService.poll(Config.LEXICON_RELOAD_DELAY_MILLIS,
+					TimeUnit.MILLISECONDS)) != null)
+				{
+					isSourceFileChanged(key);
+				}
+				reload();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// Stopped.
+		}
+		catch(ClosedWatchServiceException e)
+		{
+			// Stopped.
+		}
+	}
+	
+	private final void reload()
+	{
+		// Saving a file without changing it doesn't need new lexicons.
+		if(isUnchanged(fileAnalyser.getLexicons()))
+			return;
+		
+		// Even if only one folder changed, all lexicons are read again, so they keep sharing
+		// their normalisation profile. Those that haven't changed are loaded from their snapshots.
+		System.out.println("The config files have changed. Reading the lexicons again...");
+		Lexicon[] lexicons = Lexicon.read(configFolders, profileFolder);
+		if(lexicons == null)
+		{
+			System.out.println("Warning: Still using lexicon version "
+				+ fileAnalyser.getLexicon().getVersion()
+				+ " as the changed config files could not be read!");
+			return;
+		}
+		fileAnalyser.setLexicons(lexicons);
+		System.out.println("Now using lexicon version " + lexicons[0].getVersion() + ".");
+	}
+	
+	// Whether the source files of every lexicon still have the checksums it was built from.
+	private final boolean isUnchanged(Lexicon[] lexicons)
+	{
+		long[] sourceChecksums;
+		for(int i = 0; i < lexicons.length; i++)
+		{
+			sourceChecksums = ConfigSnapshot.checksumSources(configFolders[i], profileFolder);
+			if(sourceChecksums == null
+				|| !ConfigSnapshot.getVersion(sourceChecksums).equals(lexicons[i].getVersion()))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -20,9 +20,10 @@ package analyser;
  */
 
 import java.util.ArrayList;
-import main.Config;
+import main.NormalisationProfile;
 import dataStructures.DecomposedWord;
 import dataStructures.SentenceSummary;
+import dataStructures.TokenisedSentence;
 
 public final class SentenceAnalyser
 {
@@ -41,6 +42,9 @@ public final class SentenceAnalyser
 	private final ExceptionWordChecker exceptionWordChecker;
 	private final ComplexityChecker complexityChecker;
 	
+	// The sentences are tokenised with these rules (those of every lexicon compared with this one).
+	private final NormalisationProfile normalisationProfile;
+	
 	// ================================================================
 	// ======================== Constructor(s) ========================
 	// ================================================================
@@ -49,18 +53,21 @@ public final class SentenceAnalyser
 		exceptionWordChecker = new ExceptionWordChecker(configReader);
 		supervativeChecker = new SuperlativeChecker(configReader);
 		complexityChecker = new ComplexityChecker(configReader);
+		normalisationProfile = configReader.normalisationProfile;
 	}
 	
 	// ================================================================
 	// ======================== Public Methods ========================
 	// ================================================================
-	public final SentenceSummary analyseSentence(String originalSentence,
-		String[] tokenisedSentence)
+	// The sentence must already have been tokenised into the context's tokenised sentence.
+	public final SentenceSummary analyseSentence(String originalSentence, AnalysisContext context)
 	{
-		ArrayList<DecomposedWord> complexityMatches = new ArrayList<DecomposedWord>();
+		TokenisedSentence tokenisedSentence = context.tokenisedSentence;
+		ArrayList<DecomposedWord> complexityMatches = context.complexityMatches;
+		complexityMatches.clear();
 		
 		int i = 0;
-		int nrWords = tokenisedSentence.length;
+		int nrWords = tokenisedSentence.getNrTokens();
 		DecomposedWord complexityWord;
 		int exceptionSequenceLength;
 		
@@ -74,9 +81,6 @@ public final class SentenceAnalyser
 				continue;
 			}
 			
-			// TODO For testing only!
-			Config.checkForUnknownSymbols(tokenisedSentence[i]);
-			
 			// Test if the current word is a superlative.
 			complexityWord = supervativeChecker.check(tokenisedSentence, i);
 			if(complexityWord != null)
@@ -87,7 +91,7 @@ public final class SentenceAnalyser
 			}
 			
 			// Check if the currentWord is a complexity indicator.
-			complexityWord = complexityChecker.check(tokenisedSentence, i);
+			complexityWord = complexityChecker.check(tokenisedSentence, i, context);
 			if(complexityWord != null)
 			{
 				complexityMatches.add(complexityWord);
@@ -98,21 +102,28 @@ public final class SentenceAnalyser
 			// No rules applied. Go to the next word.
 			i++;
 		}
-		return buildSentenceSummary(originalSentence, tokenisedSentence, complexityMatches);
+		return buildSentenceSummary(originalSentence, context);
 	}
 	
 	// ================================================================
 	// ======================= Private Methods ========================
 	// ================================================================
 	private final SentenceSummary buildSentenceSummary(String originalSentence,
-		String[] tokenisedSentence, ArrayList<DecomposedWord> complexityMatches)
+		AnalysisContext context)
 	{
-		ArrayList<DecomposedWord> lcList = new ArrayList<DecomposedWord>();
-		ArrayList<DecomposedWord> hcList = new ArrayList<DecomposedWord>();
+		ArrayList<DecomposedWord> complexityMatches = context.complexityMatches;
+		ArrayList<DecomposedWord> lcList = context.lcList;
+		ArrayList<DecomposedWord> hcList = context.hcList;
+		lcList.clear();
+		hcList.clear();
+		DecomposedWord complexityMatch;
 		int complexityResult;
 		
-		for(DecomposedWord complexityMatch : complexityMatches)
+		// By index, so no iterator is needed.
+		for(int i = 0; i < complexityMatches.size(); i++)
 		{
+			complexityMatch = complexityMatches.get(i);
+			
 			// Categorise the complexity word into low or high complexity.
 			complexityResult = complexityChecker.complexityOf(complexityMatch);
 			
@@ -125,6 +136,7 @@ public final class SentenceAnalyser
 			// been informed of failure to categorise the stem of the complexity word. The word is
 			// not added to either list i.e. is treated as though it never existed.
 		}
-		return new SentenceSummary(originalSentence, tokenisedSentence, lcList, hcList);
+		return new SentenceSummary(originalSentence, normalisationProfile,
+			context.tokenisedSentence, lcList, hcList);
 	}
 }
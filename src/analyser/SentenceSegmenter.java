@@ -0,0 +1,196 @@
+package analyser;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import main.Config;
+
+/*
+ * Splits text read from a Reader into sentences, one at a time. The result is the same as reading
+ * the whole text line by line (joining the lines with spaces), standardising the punctuation and
+ * splitting it with the regular expression "(?<=[.!?;])\s*". Only the current sentence is held in
+ * memory, never the whole text. If Config.MAX_SENTENCE_LENGTH is set, longer sentences are split
+ * at their last whitespace (or anywhere if they don't contain any).
+ */
+public final class SentenceSegmenter implements SentenceSource
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int BUFFER_SIZE = 8192;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	private static final boolean isSentenceEnd(char c)
+	{
+		return c == '.' || c == '!' || c == '?' || c == ';';
+	}
+	
+	// The characters matched by "\s" in a regular expression.
+	private static final boolean isWhiteSpace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	private final Reader reader;
+	private final char[] buffer;
+	private int bufferLength;
+	private int bufferPosition;
+	
+	// The sentence being collected.
+	private final StringBuilder sentence;
+	
+	// Whitespace following the end of a sentence is dropped.
+	private boolean skippingWhiteSpace;
+	
+	// Line terminators are turned into spaces, "\r\n" counts as one terminator.
+	private boolean previousWasCarriageReturn;
+	private boolean previousWasLineTerminator;
+	private boolean anyInput;
+	
+	private boolean endOfInput;
+	private int nrSentences;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	public SentenceSegmenter(Reader reader)
+	{
+		this.reader = reader;
+		this.buffer = new char[BUFFER_SIZE];
+		this.sentence = new StringBuilder();
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Returns the next sentence or null once there are no more.
+	public final String nextSentence() throws IOException
+	{
+		if(endOfInput)
+			return null;
+		
+		char c;
+		while(true)
+		{
+			// Get more input if required.
+			if(bufferPosition == bufferLength)
+			{
+				bufferLength = reader.read(buffer, 0, BUFFER_SIZE);
+				bufferPosition = 0;
+				
+				if(bufferLength < 0)
+					return lastSentence();
+			}
+			c = buffer[bufferPosition++];
+			anyInput = true;
+			
+			// Each line terminator becomes a single space.
+			if(c == '\n' && previousWasCarriageReturn)
+			{
+				previousWasCarriageReturn = false;
+				continue;
+			}
+			previousWasCarriageReturn = c == '\r';
+			previousWasLineTerminator = c == '\r' || c == '\n';
+			if(previousWasLineTerminator)
+				c = ' ';
+			
+			// Standardise the punctuation we split on.
+			c = Config.standardisePunctuation(c);
+			
+			if(addChar(c))
+				return skippingWhiteSpace ? emitSentence() : splitSentence();
+		}
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	// Returns true if c ended the sentence or made it too long.
+	private final boolean addChar(char c)
+	{
+		// Drop whitespace after the end of a sentence.
+		if(skippingWhiteSpace)
+		{
+			if(isWhiteSpace(c))
+				return false;
+			
+			skippingWhiteSpace = false;
+		}
+		sentence.append(c);
+		
+		if(isSentenceEnd(c))
+		{
+			skippingWhiteSpace = true;
+			return true;
+		}
+		// Zero means no limit.
+		int maxLength = Config.MAX_SENTENCE_LENGTH;
+		return maxLength > 0 && sentence.length() >= maxLength;
+	}
+	
+	private final String emitSentence()
+	{
+		String result = sentence.toString();
+		sentence.setLength(0);
+		nrSentences++;
+		return result;
+	}
+	
+	// Emits the part of an overlong sentence up to its last whitespace. The rest is kept as the
+	// start of the next sentence.
+	private final String splitSentence()
+	{
+		int end = sentence.length() - 1;
+		while(end > 0 && !isWhiteSpace(sentence.charAt(end)))
+			end--;
+		
+		// No whitespace to split at.
+		if(end == 0)
+			return emitSentence();
+		
+		String result = sentence.substring(0, end);
+		sentence.delete(0, end + 1);
+		nrSentences++;
+		return result;
+	}
+	
+	private final String lastSentence()
+	{
+		endOfInput = true;
+		
+		// The last line always got a space appended, even without a line terminator.
+		if(anyInput && !previousWasLineTerminator)
+			addChar(' ');
+		
+		// Whatever follows the last sentence end. Like String.split, an empty remainder is dropped
+		// unless the text did not contain any sentences at all.
+		if(sentence.length() > 0 || nrSentences == 0)
+			return emitSentence();
+		
+		return null;
+	}
+}
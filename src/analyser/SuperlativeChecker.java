@@ -20,6 +20,7 @@ package analyser;
  */
 
 import dataStructures.DecomposedWord;
+import dataStructures.TokenisedSentence;
 
 public class SuperlativeChecker
 {
@@ -49,15 +50,14 @@ public class SuperlativeChecker
 	// ================================================================
 	// ======================== Public Methods ========================
 	// ================================================================
-	public final DecomposedWord check(String[] tokenisedSentence, int i)
+	public final DecomposedWord check(TokenisedSentence tokenisedSentence, int i)
 	{
-		String word = tokenisedSentence[i];
-		
 		// The current word has the superlative postfix.
-		if(word.endsWith(superlativePostfix))
+		if(tokenisedSentence.tokenEndsWith(i, superlativePostfix))
 		{
 			// Extract the stem of the word.
-			String stem = word.substring(0, word.length() - superlativePostfixLength);
+			String stem = tokenisedSentence.getText(tokenisedSentence.getTokenStart(i),
+				tokenisedSentence.getTokenLength(i) - superlativePostfixLength);
 			
 			// Create a corresponding DecomposedWord instance.
 			DecomposedWord superlative = new DecomposedWord(null, stem, superlativePostfix);
@@ -71,16 +71,18 @@ public class SuperlativeChecker
 		// If there are no more words left in the sentence, the superlative ending cannot be
 		// disconnected. In this case there cannot be a superlative.
 		// But the reverse of this condition is added in the following test, so we don't need this!
-		//if(i + 1 >= tokenisedSentence.length)
+		//if(i + 1 >= tokenisedSentence.getNrTokens())
 		//	return null;
 		
 		// There is another word following the current word. Check if it is the superlative-postfix.
 		// Note: An exact match is required i.e. the postfix must be equal to the entire next word.
-		if(i + 1 < tokenisedSentence.length && tokenisedSentence[i + 1].equals(superlativePostfix))
+		if(i + 1 < tokenisedSentence.getNrTokens()
+			&& tokenisedSentence.tokenEquals(i + 1, superlativePostfix))
 		{
 			// Yes, the next word is a disconnected superlative-postfix.
 			// The current word is the stem and the next word is the postfix.
-			DecomposedWord superlative = new DecomposedWord(null, word, superlativePostfix);
+			DecomposedWord superlative = new DecomposedWord(null,
+				tokenisedSentence.getTokenText(i), superlativePostfix);
 			
 			// Two words have been used up (the current word and the disconnected postfix).
 			superlative.nrWordsConsumed = 2;
@@ -20,7 +20,7 @@ package dataStructures;
  */
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import utils.UFile;
 import utils.UIndentPrinter;
 
@@ -28,6 +28,9 @@ public final class CharTree
 {
 	private final CharTreeNode root;
 	
+	// The length of the longest sequence added.
+	private int maxSequenceLength;
+	
 	public CharTree()
 	{
 		root = new CharTreeNode();
@@ -63,6 +66,7 @@ public final class CharTree
 		}
 		// The valid sequence ends here, so this is an accepting state.
 		currentNode.isAcceptingState = true;
+		maxSequenceLength = Math.max(maxSequenceLength, sequenceLength);
 	}
 	
 	public final void addValidCharacterSequence_rightToLeft(String charSequence)
@@ -95,14 +99,18 @@ public final class CharTree
 		}
 		// The valid sequence ends here, so this is an accepting state.
 		currentNode.isAcceptingState = true;
+		maxSequenceLength = Math.max(maxSequenceLength, sequenceLength);
+	}
+	
+	// No sequence can be accepted that is longer than this.
+	public final int getMaxSequenceLength()
+	{
+		return maxSequenceLength;
 	}
 	
 	public final boolean isSingleCharValid(char c)
 	{
-		if(root.children == null)
-			return false;
-		
-		CharTreeNode childNode = root.children.get(c);
+		CharTreeNode childNode = root.getChild(c);
 		
 		if(childNode == null)
 			return false;
@@ -110,7 +118,7 @@ public final class CharTree
 		return childNode.isAcceptingState;
 	}
 	
-	public final int getLongestAcceptSequenceLength_leftToRight(String charSequence, int startIndex)
+	public final int getLongestAcceptSequenceLength_leftToRight(CharSequence charSequence, int startIndex)
 	{
 		CharTreeNode currentNode = root;
 		char currentChar;
@@ -134,7 +142,7 @@ public final class CharTree
 		return longestSoFar;
 	}
 	
-	public final int getLongestAcceptSequenceLength_rightToLeft(String charSequence, int startIndex)
+	public final int getLongestAcceptSequenceLength_rightToLeft(CharSequence charSequence, int startIndex)
 	{
 		CharTreeNode currentNode = root;
 		char currentChar;
@@ -158,9 +166,18 @@ public final class CharTree
 		return longestSoFar;
 	}
 	
-	public final ArrayList<Integer> getAllAcceptSequenceLengths_leftToRight(String charSequence, int startIndex)
+	public final ArrayList<Integer> getAllAcceptSequenceLengths_leftToRight(CharSequence charSequence, int startIndex)
 	{
 		ArrayList<Integer> acceptSequenceLengths = new ArrayList<Integer>();
+		getAllAcceptSequenceLengths_leftToRight(charSequence, startIndex, acceptSequenceLengths);
+		return acceptSequenceLengths;
+	}
+	
+	// Fills the given list (after clearing it) rather than creating a new one.
+	public final void getAllAcceptSequenceLengths_leftToRight(CharSequence charSequence, int startIndex,
+		ArrayList<Integer> acceptSequenceLengths)
+	{
+		acceptSequenceLengths.clear();
 		CharTreeNode currentNode = root;
 		char currentChar;
 		
@@ -174,17 +191,25 @@ public final class CharTree
 			
 			// The node does not yet exist.
 			if(currentNode == null)
-				return acceptSequenceLengths;
+				return;
 			
 			if(currentNode.isAcceptingState)
 				acceptSequenceLengths.add(i - startIndex + 1);
 		}
-		return acceptSequenceLengths;
 	}
 	
-	public final ArrayList<Integer> getAllAcceptSequenceLengths_rightToLeft(String charSequence, int startIndex)
+	public final ArrayList<Integer> getAllAcceptSequenceLengths_rightToLeft(CharSequence charSequence, int startIndex)
 	{
 		ArrayList<Integer> acceptSequenceLengths = new ArrayList<Integer>();
+		getAllAcceptSequenceLengths_rightToLeft(charSequence, startIndex, acceptSequenceLengths);
+		return acceptSequenceLengths;
+	}
+	
+	// Fills the given list (after clearing it) rather than creating a new one.
+	public final void getAllAcceptSequenceLengths_rightToLeft(CharSequence charSequence, int startIndex,
+		ArrayList<Integer> acceptSequenceLengths)
+	{
+		acceptSequenceLengths.clear();
 		CharTreeNode currentNode = root;
 		char currentChar;
 		
@@ -198,17 +223,68 @@ public final class CharTree
 			
 			// The node does not yet exist.
 			if(currentNode == null)
-				return acceptSequenceLengths;
+				return;
 			
 			if(currentNode.isAcceptingState)
 				acceptSequenceLengths.add(startIndex - i + 1);
 		}
-		return acceptSequenceLengths;
+	}
+	
+	// Writes the lengths (shortest first) into the given array and returns how many there are. No
+	// more are found than fit into the array, getMaxSequenceLength() elements are always enough.
+	public final int getAllAcceptSequenceLengths_leftToRight(CharSequence charSequence,
+		int startIndex, int[] acceptSequenceLengths)
+	{
+		CharTreeNode currentNode = root;
+		int nrLengths = 0;
+		
+		for(int i = startIndex; i < charSequence.length(); i++)
+		{
+			currentNode = currentNode.getChild(charSequence.charAt(i));
+			
+			// The node does not exist.
+			if(currentNode == null)
+				return nrLengths;
+			
+			if(currentNode.isAcceptingState)
+			{
+				if(nrLengths == acceptSequenceLengths.length)
+					return nrLengths;
+				
+				acceptSequenceLengths[nrLengths++] = i - startIndex + 1;
+			}
+		}
+		return nrLengths;
+	}
+	
+	public final int getAllAcceptSequenceLengths_rightToLeft(CharSequence charSequence,
+		int startIndex, int[] acceptSequenceLengths)
+	{
+		CharTreeNode currentNode = root;
+		int nrLengths = 0;
+		
+		for(int i = startIndex; i >= 0; i--)
+		{
+			currentNode = currentNode.getChild(charSequence.charAt(i));
+			
+			// The node does not exist.
+			if(currentNode == null)
+				return nrLengths;
+			
+			if(currentNode.isAcceptingState)
+			{
+				if(nrLengths == acceptSequenceLengths.length)
+					return nrLengths;
+				
+				acceptSequenceLengths[nrLengths++] = startIndex - i + 1;
+			}
+		}
+		return nrLengths;
 	}
 	
 	public final String toString()
 	{
-		if(root.children == null)
+		if(root.nrChildren == 0)
 			return "";
 		
 		// Initialise for recursive call.
@@ -225,17 +301,16 @@ public final class CharTree
 	
 	private final void toStringRecursive(StringBuilder sb, UIndentPrinter indent, CharTreeNode node)
 	{
-		for(Character c : node.children.keySet())
+		for(int i = 0; i < node.nrChildren; i++)
 		{
-			// Note that childNode cannot be null because word is an existing key and we never
-			// put null values in the "children" HashMap.
-			CharTreeNode childNode = node.getChild(c);
+			char c = node.childLabels[i];
+			CharTreeNode childNode = node.children[i];
 			
 			sb.append(indent.toString());
 			sb.append(childNode.isAcceptingState ? "(" + c + ")" : c);
 			sb.append(UFile.NEWLINE);
 			
-			if(childNode != null && childNode.children != null)
+			if(childNode.nrChildren > 0)
 			{
 				indent.incIndent();
 				toStringRecursive(sb, indent, childNode);
@@ -244,33 +319,74 @@ public final class CharTree
 		}
 	}
 	
-	// ---- Private inner class ----
-	private final class CharTreeNode
+	// For building a DoubleArrayTrie from this tree.
+	final CharTreeNode getRoot()
+	{
+		return root;
+	}
+	
+	// ---- Inner class ----
+	static final class CharTreeNode
 	{
-		public HashMap<Character, CharTreeNode> children;
+		// The children sorted by the character leading to them. Arrays rather than a map because a
+		// map would box every character looked up.
+		public char[] childLabels;
+		public CharTreeNode[] children;
+		public int nrChildren;
 		public boolean isAcceptingState;
 		
 		// Constructor.
 		public CharTreeNode()
 		{
 			isAcceptingState = false;
+			childLabels = null;
 			children = null;
+			nrChildren = 0;
 		}
 		
 		public final void addChild(char c, CharTreeNode childNode)
 		{
 			if(children == null)
-				children = new HashMap<Character, CharTreeNode>();
+			{
+				childLabels = new char[1];
+				children = new CharTreeNode[1];
+			}
+			else if(nrChildren == children.length)
+			{
+				childLabels = Arrays.copyOf(childLabels, 2 * nrChildren);
+				children = Arrays.copyOf(children, 2 * nrChildren);
+			}
 			
-			children.put(c, childNode);
+			// Keep the labels sorted.
+			int i = nrChildren;
+			while(i > 0 && childLabels[i - 1] > c)
+			{
+				childLabels[i] = childLabels[i - 1];
+				children[i] = children[i - 1];
+				i--;
+			}
+			childLabels[i] = c;
+			children[i] = childNode;
+			nrChildren++;
 		}
 		
 		public final CharTreeNode getChild(char c)
 		{
-			if(children == null)
-				return null;
-			
-			return children.get(c);
+			// Binary search.
+			int low = 0;
+			int high = nrChildren - 1;
+			int mid;
+			while(low <= high)
+			{
+				mid = (low + high) >>> 1;
+				if(childLabels[mid] < c)
+					low = mid + 1;
+				else if(childLabels[mid] > c)
+					high = mid - 1;
+				else
+					return children[mid];
+			}
+			return null;
 		}
 	}
 }
@@ -31,6 +31,9 @@ public final class DecomposedWord
 	// This is a bit of a hack, don't use unless you know what you're doing!
 	public int nrWordsConsumed;
 	
+	// The complexity of the stem words, as found together with them. Zero if unknown.
+	public byte stemComplexity;
+	
 	public DecomposedWord(String prefix, ArrayList<String> stemWords, String postfix)
 	{
 		this.prefix = prefix;
@@ -0,0 +1,356 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * An immutable copy of a CharTree that is faster to search. The states are numbered and the
+ * transitions are kept in two int arrays (a "double-array trie"): the child of state s for a
+ * character with code c is t = base[s] + c, provided check[t] == s. Characters are numbered
+ * 1, 2, 3, ... so the arrays are not much longer than the number of states.
+ */
+public final class DoubleArrayTrie
+{
+	private static final int ROOT = 0;
+	
+	// Marks an unused position in the check array.
+	private static final int FREE = -1;
+	
+	// The code of each character between minChar and minChar + codes.length - 1. Zero for the
+	// characters that do not occur in the trie.
+	private final char minChar;
+	private final int[] codes;
+	
+	private final int[] base;
+	private final int[] check;
+	private final boolean[] isAcceptingState;
+	
+	private final int maxSequenceLength;
+	
+	// Constructor.
+	public DoubleArrayTrie(CharTree tree)
+	{
+		// Number the characters used in the tree.
+		char[] range = new char[] {Character.MAX_VALUE, Character.MIN_VALUE};
+		findCharRange(tree.getRoot(), range);
+		if(range[0] > range[1])
+			range[0] = range[1];
+		
+		minChar = range[0];
+		codes = new int[range[1] - range[0] + 1];
+		markUsedChars(tree.getRoot());
+		int code = 0;
+		for(int i = 0; i < codes.length; i++)
+		{
+			if(codes[i] != 0)
+				codes[i] = ++code;
+		}
+		
+		// Place the states, breadth first.
+		Builder builder = new Builder();
+		builder.place(tree.getRoot());
+		
+		base = Arrays.copyOf(builder.base, builder.length);
+		check = Arrays.copyOf(builder.check, builder.length);
+		isAcceptingState = Arrays.copyOf(builder.isAcceptingState, builder.length);
+		maxSequenceLength = tree.getMaxSequenceLength();
+	}
+	
+	// Reads a trie written by write.
+	public DoubleArrayTrie(ByteBuffer in)
+	{
+		minChar = in.getChar();
+		codes = SnapshotIO.readInts(in);
+		base = SnapshotIO.readInts(in);
+		check = SnapshotIO.readInts(in);
+		isAcceptingState = SnapshotIO.readBooleans(in);
+		maxSequenceLength = in.getInt();
+	}
+	
+	// ---- Public methods ----
+	public final int getMaxSequenceLength()
+	{
+		return maxSequenceLength;
+	}
+	
+	// The same results as the CharTree this trie was built from.
+	public final int getLongestAcceptSequenceLength_leftToRight(CharSequence charSequence,
+		int startIndex)
+	{
+		int state = ROOT;
+		int longestSoFar = 0;
+		
+		for(int i = startIndex; i < charSequence.length(); i++)
+		{
+			state = getChild(state, charSequence.charAt(i));
+			
+			// The state does not exist.
+			if(state == FREE)
+				return longestSoFar;
+			
+			if(isAcceptingState[state])
+				longestSoFar = i - startIndex + 1;
+		}
+		return longestSoFar;
+	}
+	
+	public final int getLongestAcceptSequenceLength_rightToLeft(CharSequence charSequence,
+		int startIndex)
+	{
+		int state = ROOT;
+		int longestSoFar = 0;
+		
+		for(int i = startIndex; i >= 0; i--)
+		{
+			state = getChild(state, charSequence.charAt(i));
+			
+			// The state does not exist.
+			if(state == FREE)
+				return longestSoFar;
+			
+			if(isAcceptingState[state])
+				longestSoFar = startIndex - i + 1;
+		}
+		return longestSoFar;
+	}
+	
+	// Writes the lengths (shortest first) into the given array and returns how many there are. No
+	// more are found than fit into the array, getMaxSequenceLength() elements are always enough.
+	public final int getAllAcceptSequenceLengths_leftToRight(CharSequence charSequence,
+		int startIndex, int[] acceptSequenceLengths)
+	{
+		int state = ROOT;
+		int nrLengths = 0;
+		
+		for(int i = startIndex; i < charSequence.length(); i++)
+		{
+			state = getChild(state, charSequence.charAt(i));
+			
+			// The state does not exist.
+			if(state == FREE)
+				return nrLengths;
+			
+			if(isAcceptingState[state])
+			{
+				if(nrLengths == acceptSequenceLengths.length)
+					return nrLengths;
+				
+				acceptSequenceLengths[nrLengths++] = i - startIndex + 1;
+			}
+		}
+		return nrLengths;
+	}
+	
+	public final int getAllAcceptSequenceLengths_rightToLeft(CharSequence charSequence,
+		int startIndex, int[] acceptSequenceLengths)
+	{
+		int state = ROOT;
+		int nrLengths = 0;
+		
+		for(int i = startIndex; i >= 0; i--)
+		{
+			state = getChild(state, charSequence.charAt(i));
+			
+			// The state does not exist.
+			if(state == FREE)
+				return nrLengths;
+			
+			if(isAcceptingState[state])
+			{
+				if(nrLengths == acceptSequenceLengths.length)
+					return nrLengths;
+				
+				acceptSequenceLengths[nrLengths++] = startIndex - i + 1;
+			}
+		}
+		return nrLengths;
+	}
+	
+	public final void write(DataOutput out) throws IOException
+	{
+		out.writeChar(minChar);
+		SnapshotIO.writeInts(out, codes);
+		SnapshotIO.writeInts(out, base);
+		SnapshotIO.writeInts(out, check);
+		SnapshotIO.writeBooleans(out, isAcceptingState);
+		out.writeInt(maxSequenceLength);
+	}
+	
+	// Tries built from equal trees are equal.
+	public final int hashCode()
+	{
+		return Arrays.hashCode(base) ^ Arrays.hashCode(check);
+	}
+	
+	public final boolean equals(Object other)
+	{
+		if(!(other instanceof DoubleArrayTrie))
+			return false;
+		
+		DoubleArrayTrie trie = (DoubleArrayTrie)other;
+		return minChar == trie.minChar && maxSequenceLength == trie.maxSequenceLength
+			&& Arrays.equals(codes, trie.codes) && Arrays.equals(base, trie.base)
+			&& Arrays.equals(check, trie.check)
+			&& Arrays.equals(isAcceptingState, trie.isAcceptingState);
+	}
+	
+	// ---- Private methods ----
+	// Returns FREE if there is no such child.
+	private final int getChild(int state, char c)
+	{
+		int offset = c - minChar;
+		if(offset < 0 || offset >= codes.length || codes[offset] == 0)
+			return FREE;
+		
+		int child = base[state] + codes[offset];
+		if(child >= check.length || check[child] != state)
+			return FREE;
+		
+		return child;
+	}
+	
+	private static final void findCharRange(CharTree.CharTreeNode node, char[] range)
+	{
+		for(int i = 0; i < node.nrChildren; i++)
+		{
+			range[0] = (char)Math.min(range[0], node.childLabels[i]);
+			range[1] = (char)Math.max(range[1], node.childLabels[i]);
+			findCharRange(node.children[i], range);
+		}
+	}
+	
+	private final void markUsedChars(CharTree.CharTreeNode node)
+	{
+		for(int i = 0; i < node.nrChildren; i++)
+		{
+			codes[node.childLabels[i] - minChar] = 1;
+			markUsedChars(node.children[i]);
+		}
+	}
+	
+	private final int codeOf(char c)
+	{
+		return codes[c - minChar];
+	}
+	
+	// ---- Private inner class ----
+	// Grows the arrays while the states are being placed.
+	private final class Builder
+	{
+		public int[] base;
+		public int[] check;
+		public boolean[] isAcceptingState;
+		public int length;
+		
+		// Where to start looking for free positions. Everything before it is in use.
+		private int firstFree;
+		
+		// Constructor.
+		public Builder()
+		{
+			base = new int[64];
+			check = new int[64];
+			isAcceptingState = new boolean[64];
+			Arrays.fill(check, FREE);
+			
+			// The root.
+			check[ROOT] = ROOT;
+			length = 1;
+			firstFree = 1;
+		}
+		
+		public final void place(CharTree.CharTreeNode root)
+		{
+			ArrayList<CharTree.CharTreeNode> nodes = new ArrayList<CharTree.CharTreeNode>();
+			ArrayList<Integer> states = new ArrayList<Integer>();
+			nodes.add(root);
+			states.add(ROOT);
+			
+			CharTree.CharTreeNode node;
+			int state;
+			int nodeBase;
+			int child;
+			for(int i = 0; i < nodes.size(); i++)
+			{
+				node = nodes.get(i);
+				state = states.get(i);
+				isAcceptingState[state] = node.isAcceptingState;
+				if(node.nrChildren == 0)
+					continue;
+				
+				// Claim a position for every child.
+				nodeBase = findBase(node);
+				base[state] = nodeBase;
+				for(int j = 0; j < node.nrChildren; j++)
+				{
+					child = nodeBase + codeOf(node.childLabels[j]);
+					check[child] = state;
+					length = Math.max(length, child + 1);
+					
+					nodes.add(node.children[j]);
+					states.add(child);
+				}
+				while(firstFree < check.length && check[firstFree] != FREE)
+					firstFree++;
+			}
+		}
+		
+		// The smallest base at which all children of the node fall on free positions.
+		private final int findBase(CharTree.CharTreeNode node)
+		{
+			int firstCode = codeOf(node.childLabels[0]);
+			int nodeBase = Math.max(1, firstFree - firstCode);
+			while(!fits(node, nodeBase))
+				nodeBase++;
+			return nodeBase;
+		}
+		
+		private final boolean fits(CharTree.CharTreeNode node, int nodeBase)
+		{
+			int position;
+			for(int j = 0; j < node.nrChildren; j++)
+			{
+				position = nodeBase + codeOf(node.childLabels[j]);
+				ensureCapacity(position + 1);
+				if(check[position] != FREE)
+					return false;
+			}
+			return true;
+		}
+		
+		private final void ensureCapacity(int capacity)
+		{
+			if(capacity <= check.length)
+				return;
+			
+			int oldLength = check.length;
+			int newLength = Math.max(capacity, 2 * oldLength);
+			base = Arrays.copyOf(base, newLength);
+			check = Arrays.copyOf(check, newLength);
+			isAcceptingState = Arrays.copyOf(isAcceptingState, newLength);
+			Arrays.fill(check, oldLength, newLength, FREE);
+		}
+	}
+}
@@ -27,6 +27,18 @@ public final class FileSummary
 	// Detailed data about each sentence.
 	public final ArrayList<SentenceSummary> sentenceSummaries;
 	
+	// Characters found in the file that are not part of the alphabet.
+	public final SymbolCounts unknownSymbols;
+	
+	// Sentences that were not analysed because they are not (mostly) in Persian.
+	public int nrSkippedSentences;
+	
+	// The time limit was reached, so only the sentences before that point were analysed.
+	public boolean timedOut;
+	
+	// The version of the lexicon the file was analysed with.
+	public String lexiconVersion;
+	
 	// Statistical data.
 	public int nrTokensInFile;
 	public int totalLcCount;
@@ -36,11 +48,15 @@ public final class FileSummary
 	public final ArrayList<DecomposedWord> collectedHcComplexityWords;
 	
 	// Constructor.
-	public FileSummary(ArrayList<SentenceSummary> sentenceSummaries)
+	public FileSummary(ArrayList<SentenceSummary> sentenceSummaries, SymbolCounts unknownSymbols)
 	{
 		this.sentenceSummaries = sentenceSummaries;
+		this.unknownSymbols = unknownSymbols;
 		
 		// Initialise statistics values.
+		nrSkippedSentences = 0;
+		timedOut = false;
+		lexiconVersion = null;
 		nrTokensInFile = 0;
 		totalLcCount = 0;
 		totalHcCount = 0;
@@ -59,7 +75,7 @@ public final class FileSummary
 		{
 			sentenceSummary = sentenceSummaries.get(i);
 			
-			nrTokensInFile += sentenceSummary.tokenisedSentence.length;
+			nrTokensInFile += sentenceSummary.nrTokens;
 			totalLcCount += sentenceSummary.getLcCount();
 			totalHcCount += sentenceSummary.getHcCount();
 			
@@ -108,6 +124,43 @@ public final class FileSummary
 		sb.append(statisticsTable.toString());
 		sb.append(UFile.NEWLINE);
 		
+		// Which lexicon the results are based on.
+		if(lexiconVersion != null)
+		{
+			sb.append(UFile.NEWLINE);
+			sb.append("Lexicon version: " + lexiconVersion);
+			sb.append(UFile.NEWLINE);
+		}
+		
+		// Mention sentences that were left out.
+		if(nrSkippedSentences > 0)
+		{
+			sb.append(UFile.NEWLINE);
+			sb.append("Skipped non-Persian sentences: " + nrSkippedSentences);
+			sb.append(UFile.NEWLINE);
+		}
+		
+		// Mention that the analysis is incomplete.
+		if(timedOut)
+		{
+			sb.append(UFile.NEWLINE);
+			sb.append("Time limit reached! Only the first "
+				+ (sentenceSummaries.size() + nrSkippedSentences) + " sentences were analysed.");
+			sb.append(UFile.NEWLINE);
+		}
+		
+		// List any unknown characters found in the file.
+		if(!unknownSymbols.isEmpty())
+		{
+			sb.append(UFile.NEWLINE);
+			sb.append("---- UNKNOWN SYMBOLS ----");
+			sb.append(UFile.NEWLINE);
+			sb.append(UFile.NEWLINE);
+			sb.append(UFile.NEWLINE);
+			sb.append(unknownSymbols.toTable().toString());
+			sb.append(UFile.NEWLINE);
+		}
+		
 		// Return the lot.
 		return sb.toString();
 	}
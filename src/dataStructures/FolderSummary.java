@@ -53,12 +53,15 @@ public final class FolderSummary
 	int totalLc;
 	int totalHc;
 	int nrSuperlatives;
+	int nrSkippedSentences;
+	int nrTimedOutFiles;
 	double totalComplexityScore;
 	
 	// Derived statistical data.
 	double averageComplexityScore;
 	double complexityScoreBasedOnTotals;
 	HashMap<ArrayList<String>, Integer[]> complexityStemWordCounts;
+	final SymbolCounts unknownSymbols;
 	
 	// Output.
 	private final MyTable<String> filesTable;
@@ -78,12 +81,15 @@ public final class FolderSummary
 		totalLc = 0;
 		totalHc = 0;
 		nrSuperlatives = 0;
+		nrSkippedSentences = 0;
+		nrTimedOutFiles = 0;
 		totalComplexityScore = 0.0;
 		
 		// Initialise derived values.
 		averageComplexityScore = 0.0;
 		complexityScoreBasedOnTotals = 0.0;
 		complexityStemWordCounts = new HashMap<ArrayList<String>, Integer[]>();
+		unknownSymbols = new SymbolCounts();
 		
 		filesTable = new MyTable<String>();
 		filesTable.setColLabels(new String[]
@@ -119,6 +125,13 @@ public final class FolderSummary
 			cropFileNameIfRequired(fileName)
 		});
 		
+		// Unknown characters, skipped sentences and timeouts are collected from every file, whether
+		// it has a score or not.
+		unknownSymbols.addAll(fileSummary.unknownSymbols);
+		nrSkippedSentences += fileSummary.nrSkippedSentences;
+		if(fileSummary.timedOut)
+			nrTimedOutFiles++;
+		
 		// Only add to the totals if the complexity score is non-NaN. Adding a NaN complexity score
 		// to the total would result in the total being set to NaN - which we don't want! Instead
 		// the file will be treated as though it never existed (as far as the summary statistics
@@ -221,6 +234,30 @@ public final class FolderSummary
 		sb.append(UFile.NEWLINE);
 		sb.append("nrSuperlatives = " + nrSuperlatives);
 		sb.append(UFile.NEWLINE);
+		
+		// Mention sentences that were left out.
+		if(nrSkippedSentences > 0)
+		{
+			sb.append("nrSkippedSentences = " + nrSkippedSentences);
+			sb.append(UFile.NEWLINE);
+		}
+		
+		// Mention files that were only partly analysed.
+		if(nrTimedOutFiles > 0)
+		{
+			sb.append("nrTimedOutFiles = " + nrTimedOutFiles);
+			sb.append(UFile.NEWLINE);
+		}
+		
+		// List any unknown characters found in the folder.
+		if(!unknownSymbols.isEmpty())
+		{
+			sb.append(UFile.NEWLINE);
+			sb.append(UFile.NEWLINE);
+			sb.append(UFile.NEWLINE);
+			sb.append(unknownSymbols.toTable().toString());
+			sb.append(UFile.NEWLINE);
+		}
 		return sb.toString();
 	}
 	
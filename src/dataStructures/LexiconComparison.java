@@ -0,0 +1,114 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+
+import utils.UFile;
+
+// Sets the scores given by different lexicons to the same files side by side.
+public final class LexiconComparison
+{
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	private final String[] lexiconNames;
+	
+	// Output.
+	private final MyTable<String> filesTable;
+	private final MyTable<String> statisticsTable;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	public LexiconComparison(String[] lexiconNames)
+	{
+		this.lexiconNames = lexiconNames;
+		
+		// One score per lexicon, followed by the change from the first one for the others.
+		String[] colLabels = new String[2 * lexiconNames.length];
+		for(int i = 0; i < lexiconNames.length; i++)
+			colLabels[i] = "Score " + lexiconNames[i];
+		for(int i = 1; i < lexiconNames.length; i++)
+			colLabels[lexiconNames.length + i - 1] = "Change " + lexiconNames[i];
+		colLabels[colLabels.length - 1] = "File Name";
+		
+		filesTable = new MyTable<String>();
+		filesTable.setColLabels(colLabels);
+		
+		statisticsTable = new MyTable<String>();
+		statisticsTable.setColLabels(new String[]
+		{
+			"Lexicon", "Nr Files", "Total tokens", "Total LC Count", "Total HC Count",
+			"Complexity Score (totals)", "Complexity Score (average)"
+		});
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// One summary per lexicon, in the order of the names given to the constructor.
+	public final void addFileSummaries(String fileName, FileSummary[] fileSummaries)
+	{
+		String[] row = new String[2 * lexiconNames.length];
+		double firstScore = fileSummaries[0].complexityScore;
+		for(int i = 0; i < lexiconNames.length; i++)
+			row[i] = "" + fileSummaries[i].complexityScore;
+		
+		// NaN if either score is NaN.
+		for(int i = 1; i < lexiconNames.length; i++)
+			row[lexiconNames.length + i - 1] = "" + (fileSummaries[i].complexityScore - firstScore);
+		
+		// Remove ".txt" ending.
+		row[row.length - 1] = fileName.substring(0, fileName.length() - 4);
+		filesTable.addRow(row);
+	}
+	
+	// The folder summaries must have generated their statistics already.
+	public final void generateStatistics(FolderSummary[] folderSummaries)
+	{
+		for(int i = 0; i < lexiconNames.length; i++)
+		{
+			FolderSummary folderSummary = folderSummaries[i];
+			statisticsTable.addRow(new String[]
+			{
+				lexiconNames[i],
+				"" + folderSummary.nrFiles,
+				"" + folderSummary.nrTokensInFolder,
+				"" + folderSummary.totalLc,
+				"" + folderSummary.totalHc,
+				"" + folderSummary.complexityScoreBasedOnTotals,
+				"" + folderSummary.averageComplexityScore
+			});
+		}
+	}
+	
+	public final String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(filesTable.toString());
+		sb.append(UFile.NEWLINE);
+		sb.append(UFile.NEWLINE);
+		sb.append(UFile.NEWLINE);
+		sb.append(UFile.NEWLINE);
+		sb.append(statisticsTable.toString());
+		sb.append(UFile.NEWLINE);
+		return sb.toString();
+	}
+}
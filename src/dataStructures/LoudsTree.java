@@ -0,0 +1,201 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/*
+ * An immutable, succinct copy of the nodes of a StringTree (level-order unary degree sequence).
+ * The nodes are numbered breadth first, the root being 0. The shape of the tree is a single bit
+ * vector: "10" followed by, for each node, a one per child and then a zero. The children of node
+ * n are the consecutive nodes that start at (position of the (n + 1)-th zero) - n. The word IDs
+ * on the edges are packed into as few bits as the largest ID needs, ordered by the node they
+ * lead to. This takes a few bytes per node in total.
+ */
+final class LoudsTree
+{
+	static final int NO_NODE = -1;
+	
+	private final SuccinctBitVector shape;
+	
+	// The word ID on the edge leading to node n (n > 0) is label n - 1.
+	private final long[] labels;
+	private final int labelWidth;
+	private final long labelMask;
+	
+	// Which nodes are accepting states and the value of each accepting state (in node order).
+	private final SuccinctBitVector acceptingStates;
+	private final byte[] values;
+	
+	// Constructor. Takes the nodes of a tree in which node 0 is the root and the children of each
+	// node are sorted by word ID.
+	LoudsTree(int nrNodes, int[][] childWordIds, int[][] childNodes, int[] nrChildren,
+		boolean[] isAcceptingState, byte[] nodeValues, int nrWords)
+	{
+		labelWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(nrWords - 1));
+		labelMask = (1L << labelWidth) - 1;
+		labels = new long[(int)(((long)nrNodes * labelWidth) >>> 6) + 2];
+		
+		// Number the nodes breadth first. Children are numbered in the order of their word IDs.
+		int[] order = new int[nrNodes];
+		order[0] = 0;
+		int nrNumbered = 1;
+		int nrAccepting = 0;
+		int node;
+		for(int n = 0; n < nrNodes; n++)
+		{
+			node = order[n];
+			if(isAcceptingState[node])
+				nrAccepting++;
+			
+			for(int i = 0; i < nrChildren[node]; i++)
+			{
+				setLabel(nrNumbered - 1, childWordIds[node][i]);
+				order[nrNumbered++] = childNodes[node][i];
+			}
+		}
+		
+		// The shape: "10", then the degree of each node in unary.
+		long[] shapeBits = new long[SuccinctBitVector.nrWords(2 * nrNodes + 1)];
+		long[] acceptingBits = new long[SuccinctBitVector.nrWords(nrNodes)];
+		values = new byte[nrAccepting];
+		SuccinctBitVector.set(shapeBits, 0);
+		int position = 2;
+		int nrValues = 0;
+		for(int n = 0; n < nrNodes; n++)
+		{
+			node = order[n];
+			for(int i = 0; i < nrChildren[node]; i++)
+				SuccinctBitVector.set(shapeBits, position++);
+			position++;
+			
+			if(isAcceptingState[node])
+			{
+				SuccinctBitVector.set(acceptingBits, n);
+				values[nrValues++] = nodeValues[node];
+			}
+		}
+		shape = new SuccinctBitVector(shapeBits);
+		acceptingStates = new SuccinctBitVector(acceptingBits);
+	}
+	
+	// Reads a tree written by write.
+	LoudsTree(ByteBuffer in)
+	{
+		shape = new SuccinctBitVector(in);
+		labelWidth = in.getInt();
+		labelMask = (1L << labelWidth) - 1;
+		labels = SnapshotIO.readLongs(in);
+		acceptingStates = new SuccinctBitVector(in);
+		values = SnapshotIO.readBytes(in);
+	}
+	
+	// ---- Package-private methods ----
+	final void write(DataOutput out) throws IOException
+	{
+		shape.write(out);
+		out.writeInt(labelWidth);
+		SnapshotIO.writeLongs(out, labels);
+		acceptingStates.write(out);
+		SnapshotIO.writeBytes(out, values);
+	}
+	
+	final int getNrChildren(int node)
+	{
+		return shape.select0(node + 2) - shape.select0(node + 1) - 1;
+	}
+	
+	final int getChildWordId(int node, int i)
+	{
+		return getLabel(getFirstChild(node) - 1 + i);
+	}
+	
+	final int getChildNode(int node, int i)
+	{
+		return getFirstChild(node) + i;
+	}
+	
+	// Returns NO_NODE if there is no such child.
+	final int getChild(int node, int wordId)
+	{
+		int start = shape.select0(node + 1);
+		int firstChild = start - node;
+		
+		// Binary search.
+		int low = firstChild;
+		int high = firstChild + shape.select0(node + 2) - start - 2;
+		int mid;
+		int midWordId;
+		while(low <= high)
+		{
+			mid = (low + high) >>> 1;
+			midWordId = getLabel(mid - 1);
+			if(midWordId < wordId)
+				low = mid + 1;
+			else if(midWordId > wordId)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return NO_NODE;
+	}
+	
+	final boolean isAcceptingState(int node)
+	{
+		return acceptingStates.get(node);
+	}
+	
+	final byte getValue(int node)
+	{
+		return values[acceptingStates.rank1(node)];
+	}
+	
+	// ---- Private methods ----
+	private final int getFirstChild(int node)
+	{
+		return shape.select0(node + 1) - node;
+	}
+	
+	private final int getLabel(int i)
+	{
+		long bitPosition = (long)i * labelWidth;
+		int word = (int)(bitPosition >>> 6);
+		int shift = (int)(bitPosition & 63);
+		
+		long value = labels[word] >>> shift;
+		if(shift + labelWidth > 64)
+			value |= labels[word + 1] << (64 - shift);
+		
+		return (int)(value & labelMask);
+	}
+	
+	private final void setLabel(int i, int wordId)
+	{
+		long bitPosition = (long)i * labelWidth;
+		int word = (int)(bitPosition >>> 6);
+		int shift = (int)(bitPosition & 63);
+		
+		labels[word] |= (long)wordId << shift;
+		if(shift + labelWidth > 64)
+			labels[word + 1] |= (long)wordId >>> (64 - shift);
+	}
+}
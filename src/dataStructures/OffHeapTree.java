@@ -0,0 +1,108 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/*
+ * A minimised StringTree searched where it was written (e.g. in a mapped file) instead of being
+ * copied onto the heap. The layout is the one StringTree writes: the children of the root by word
+ * ID, then the edges of all nodes and one byte per node for whether it accepts and for its value.
+ */
+final class OffHeapTree
+{
+	static final int NO_NODE = LoudsTree.NO_NODE;
+	
+	private static final int ROOT = 0;
+	
+	private final IntBuffer rootChildren;
+	
+	// The edges of node n are those from firstEdge[n] up to (excluding) firstEdge[n + 1].
+	private final IntBuffer firstEdge;
+	private final IntBuffer edgeWordIds;
+	private final IntBuffer edgeNodes;
+	
+	private final ByteBuffer isAcceptingState;
+	private final ByteBuffer values;
+	
+	// Constructor. Reads the rest of a minimised tree (after the children of the root).
+	OffHeapTree(IntBuffer rootChildren, ByteBuffer in)
+	{
+		this.rootChildren = rootChildren;
+		firstEdge = SnapshotIO.viewInts(in);
+		edgeWordIds = SnapshotIO.viewInts(in);
+		edgeNodes = SnapshotIO.viewInts(in);
+		isAcceptingState = SnapshotIO.viewBytes(in);
+		values = SnapshotIO.viewBytes(in);
+	}
+	
+	// ---- Package-private methods ----
+	final int getNrChildren(int node)
+	{
+		return firstEdge.get(node + 1) - firstEdge.get(node);
+	}
+	
+	final int getChildWordId(int node, int i)
+	{
+		return edgeWordIds.get(firstEdge.get(node) + i);
+	}
+	
+	final int getChildNode(int node, int i)
+	{
+		return edgeNodes.get(firstEdge.get(node) + i);
+	}
+	
+	// Returns NO_NODE if there is no such child.
+	final int getChild(int node, int wordId)
+	{
+		if(node == ROOT)
+			return wordId < rootChildren.limit() ? rootChildren.get(wordId) : NO_NODE;
+		
+		// Binary search.
+		int low = firstEdge.get(node);
+		int high = firstEdge.get(node + 1) - 1;
+		int mid;
+		int midWordId;
+		while(low <= high)
+		{
+			mid = (low + high) >>> 1;
+			midWordId = edgeWordIds.get(mid);
+			if(midWordId < wordId)
+				low = mid + 1;
+			else if(midWordId > wordId)
+				high = mid - 1;
+			else
+				return edgeNodes.get(mid);
+		}
+		return NO_NODE;
+	}
+	
+	final boolean isAcceptingState(int node)
+	{
+		return isAcceptingState.get(node) != 0;
+	}
+	
+	final byte getValue(int node)
+	{
+		return values.get(node);
+	}
+}
@@ -0,0 +1,313 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * An immutable map from words to byte values, searched with any CharSequence. Every word has a
+ * slot of its own (a "minimal perfect hash"), so a lookup hashes the characters once and looks at
+ * exactly one slot. The words are put into buckets by one part of their hash, and each bucket is
+ * given a seed that places all of its words on free slots when mixed with the other part.
+ * 
+ * Each slot also holds one byte of the hash of its word. Almost every word that is not in the map
+ * is rejected by comparing that byte, only the rest are compared character by character.
+ */
+public final class PerfectHashTable
+{
+	// The slot of any word that is not in the table.
+	public static final int NOT_FOUND = -1;
+	
+	// The average number of words per bucket. Fewer buckets take less space, but more tries to
+	// find the seeds.
+	private static final int WORDS_PER_BUCKET = 2;
+	
+	// Seeds tried per bucket before starting over with a different hash.
+	private static final int MAX_TRIES_PER_WORD = 64;
+	
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+	
+	// Mixed into the hash of every word. Only changed if no seeds can be found with the first one.
+	private final long hashSeed;
+	
+	// One seed per bucket.
+	private final int[] seeds;
+	
+	// By slot.
+	private final String[] words;
+	private final byte[] values;
+	private final byte[] fingerprints;
+	
+	// Constructor. The words must be distinct, values[i] is the value of words[i].
+	public PerfectHashTable(String[] words, byte[] values)
+	{
+		int nrWords = words.length;
+		this.words = new String[nrWords];
+		this.values = new byte[nrWords];
+		this.fingerprints = new byte[nrWords];
+		this.seeds = new int[nrWords / WORDS_PER_BUCKET + 1];
+		
+		long[] hashes = new long[nrWords];
+		long seed = 0;
+		while(true)
+		{
+			for(int i = 0; i < nrWords; i++)
+				hashes[i] = hash(words[i], seed);
+			
+			if(placeWords(hashes))
+				break;
+			
+			// Two words with the same hash (or just very bad luck).
+			seed++;
+		}
+		hashSeed = seed;
+		
+		int slot;
+		for(int i = 0; i < nrWords; i++)
+		{
+			slot = slotOf(hashes[i]);
+			this.words[slot] = words[i];
+			this.values[slot] = values[i];
+			this.fingerprints[slot] = fingerprint(hashes[i]);
+		}
+	}
+	
+	// Reads a table written by write.
+	public PerfectHashTable(ByteBuffer in)
+	{
+		hashSeed = in.getLong();
+		seeds = SnapshotIO.readInts(in);
+		values = SnapshotIO.readBytes(in);
+		fingerprints = SnapshotIO.readBytes(in);
+		words = new String[values.length];
+		for(int slot = 0; slot < words.length; slot++)
+			words[slot] = SnapshotIO.readString(in);
+	}
+	
+	// ---- Public methods ----
+	// Returns the slot of the word with the same characters or NOT_FOUND if there is none.
+	public final int getSlot(CharSequence word)
+	{
+		if(words.length == 0)
+			return NOT_FOUND;
+		
+		long hash = hash(word, hashSeed);
+		int slot = slotOf(hash);
+		if(fingerprints[slot] != fingerprint(hash) || !sameChars(words[slot], word))
+			return NOT_FOUND;
+		
+		return slot;
+	}
+	
+	// Returns the stored word with the same characters or null if there is none.
+	public final String find(CharSequence word)
+	{
+		int slot = getSlot(word);
+		return slot == NOT_FOUND ? null : words[slot];
+	}
+	
+	public final String getWord(int slot)
+	{
+		return words[slot];
+	}
+	
+	public final byte getValue(int slot)
+	{
+		return values[slot];
+	}
+	
+	public final int size()
+	{
+		return words.length;
+	}
+	
+	public final void write(DataOutput out) throws IOException
+	{
+		out.writeLong(hashSeed);
+		SnapshotIO.writeInts(out, seeds);
+		SnapshotIO.writeBytes(out, values);
+		SnapshotIO.writeBytes(out, fingerprints);
+		for(int slot = 0; slot < words.length; slot++)
+			SnapshotIO.writeString(out, words[slot]);
+	}
+	
+	// Tables built from the same words and values are equal. The fingerprints follow from the
+	// words and seeds.
+	public final int hashCode()
+	{
+		return Arrays.hashCode(words) ^ Arrays.hashCode(values);
+	}
+	
+	public final boolean equals(Object other)
+	{
+		if(!(other instanceof PerfectHashTable))
+			return false;
+		
+		PerfectHashTable table = (PerfectHashTable)other;
+		return hashSeed == table.hashSeed && Arrays.equals(seeds, table.seeds)
+			&& Arrays.equals(words, table.words) && Arrays.equals(values, table.values);
+	}
+	
+	// ---- Private methods ----
+	// Finds a seed for every bucket, the largest buckets first. Returns false if there is a bucket
+	// for which none could be found.
+	private final boolean placeWords(long[] hashes)
+	{
+		int nrWords = hashes.length;
+		int nrBuckets = seeds.length;
+		
+		// The words of each bucket, as indices into hashes.
+		int[] bucketSizes = new int[nrBuckets];
+		for(int i = 0; i < nrWords; i++)
+			bucketSizes[bucketOf(hashes[i])]++;
+		
+		int[][] buckets = new int[nrBuckets][];
+		for(int b = 0; b < nrBuckets; b++)
+			buckets[b] = new int[bucketSizes[b]];
+		
+		Arrays.fill(bucketSizes, 0);
+		int bucket;
+		for(int i = 0; i < nrWords; i++)
+		{
+			bucket = bucketOf(hashes[i]);
+			buckets[bucket][bucketSizes[bucket]++] = i;
+		}
+		
+		// Sort the buckets by size (largest first) with a counting sort.
+		int maxBucketSize = 0;
+		for(int b = 0; b < nrBuckets; b++)
+			maxBucketSize = Math.max(maxBucketSize, bucketSizes[b]);
+		
+		int[] order = new int[nrBuckets];
+		int position = 0;
+		for(int size = maxBucketSize; size > 0; size--)
+		{
+			for(int b = 0; b < nrBuckets; b++)
+			{
+				if(bucketSizes[b] == size)
+					order[position++] = b;
+			}
+		}
+		
+		boolean[] isSlotUsed = new boolean[nrWords];
+		int[] bucketSlots = new int[maxBucketSize];
+		int maxTries = MAX_TRIES_PER_WORD * nrWords;
+		Arrays.fill(seeds, 0);
+		for(int i = 0; i < position; i++)
+		{
+			bucket = order[i];
+			if(!placeBucket(buckets[bucket], bucket, hashes, isSlotUsed, bucketSlots, maxTries))
+				return false;
+		}
+		return true;
+	}
+	
+	private final boolean placeBucket(int[] bucketWords, int bucket, long[] hashes,
+		boolean[] isSlotUsed, int[] bucketSlots, int maxTries)
+	{
+		int slot;
+		int j;
+		for(int seed = 0; seed < maxTries; seed++)
+		{
+			seeds[bucket] = seed;
+			for(j = 0; j < bucketWords.length; j++)
+			{
+				slot = slotOf(hashes[bucketWords[j]]);
+				if(isSlotUsed[slot])
+					break;
+				
+				// Claim the slot, so the other words of the bucket can't use it.
+				isSlotUsed[slot] = true;
+				bucketSlots[j] = slot;
+			}
+			
+			if(j == bucketWords.length)
+				return true;
+			
+			// Give the slots back and try the next seed.
+			for(int k = 0; k < j; k++)
+				isSlotUsed[bucketSlots[k]] = false;
+		}
+		return false;
+	}
+	
+	private final int bucketOf(long hash)
+	{
+		return reduce((int)(hash >>> 32), seeds.length);
+	}
+	
+	private final int slotOf(long hash)
+	{
+		return reduce(mix((int)hash ^ seeds[bucketOf(hash)] * 0x9E3779B9), words.length);
+	}
+	
+	private static final byte fingerprint(long hash)
+	{
+		return (byte)mix((int)(hash >>> 32) + (int)hash);
+	}
+	
+	// FNV-1a over the characters, followed by a final mix of the bits.
+	private static final long hash(CharSequence word, long seed)
+	{
+		long hash = FNV_OFFSET_BASIS ^ seed;
+		for(int i = 0; i < word.length(); i++)
+			hash = (hash ^ word.charAt(i)) * FNV_PRIME;
+		
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+	
+	private static final int mix(int x)
+	{
+		x ^= x >>> 16;
+		x *= 0x85EBCA6B;
+		x ^= x >>> 13;
+		x *= 0xC2B2AE35;
+		x ^= x >>> 16;
+		return x;
+	}
+	
+	// Maps x onto 0 ... n - 1 without a division.
+	private static final int reduce(int x, int n)
+	{
+		return (int)(((x & 0xFFFFFFFFL) * n) >>> 32);
+	}
+	
+	private static final boolean sameChars(String a, CharSequence b)
+	{
+		int n = a.length();
+		if(b.length() != n)
+			return false;
+		
+		for(int i = 0; i < n; i++)
+		{
+			if(a.charAt(i) != b.charAt(i))
+				return false;
+		}
+		return true;
+	}
+}
@@ -20,6 +20,7 @@ package dataStructures;
  */
 
 import java.util.ArrayList;
+import main.NormalisationProfile;
 import utils.UArray;
 import utils.UFile;
 import utils.UList;
@@ -28,18 +29,46 @@ public final class SentenceSummary
 {
 	// Raw data.
 	public final String originalSentence;
-	public final String[] tokenisedSentence;
+	public final int nrTokens;
 	public final ArrayList<DecomposedWord> lcList;
 	public final ArrayList<DecomposedWord> hcList;
 	
-	// Constructor.
-	public SentenceSummary(String originalSentence, String[] tokenisedSentence,
-		ArrayList<DecomposedWord> lcList, ArrayList<DecomposedWord> hcList)
+	// The rules the sentence was tokenised with. The tokenised sentence itself is reused for the
+	// next sentence, so the tokens are only made again (from the original sentence) when the
+	// summary is written.
+	private final NormalisationProfile normalisationProfile;
+	
+	// Constructor. The lists may be reused for the next sentence as well, so they are copied.
+	public SentenceSummary(String originalSentence, NormalisationProfile normalisationProfile,
+		TokenisedSentence tokenisedSentence, ArrayList<DecomposedWord> lcList,
+		ArrayList<DecomposedWord> hcList)
 	{
 		this.originalSentence = originalSentence;
-		this.tokenisedSentence = tokenisedSentence;
-		this.lcList = lcList;
-		this.hcList = hcList;
+		this.normalisationProfile = normalisationProfile;
+		this.nrTokens = tokenisedSentence.getNrTokens();
+		this.lcList = copy(lcList);
+		this.hcList = copy(hcList);
+	}
+	
+	// An empty list doesn't need an array.
+	private static final ArrayList<DecomposedWord> copy(ArrayList<DecomposedWord> list)
+	{
+		ArrayList<DecomposedWord> copy = new ArrayList<DecomposedWord>(list.size());
+		for(int i = 0; i < list.size(); i++)
+			copy.add(list.get(i));
+		return copy;
+	}
+	
+	// The same tokens the sentence was analysed with.
+	public final String[] getTokenisedSentence()
+	{
+		TokenisedSentence tokenisedSentence = new TokenisedSentence();
+		normalisationProfile.tokenise(originalSentence, tokenisedSentence);
+		
+		String[] tokens = new String[tokenisedSentence.getNrTokens()];
+		for(int i = 0; i < tokens.length; i++)
+			tokens[i] = tokenisedSentence.getTokenText(i);
+		return tokens;
 	}
 	
 	public final int getLcCount()
@@ -61,7 +90,7 @@ public final class SentenceSummary
 		sb.append(UFile.NEWLINE);
 		
 		sb.append("Tokenised    : ");
-		sb.append(UArray.arrayToString(tokenisedSentence));
+		sb.append(UArray.arrayToString(getTokenisedSentence()));
 		sb.append(UFile.NEWLINE);
 		
 		sb.append("LC words (");
@@ -0,0 +1,159 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/*
+ * Writes arrays and Strings to a DataOutput and reads them back from a ByteBuffer (e.g. a mapped
+ * file), both in big-endian order. Each array is preceded by its length. Arrays are copied in bulk
+ * rather than one element at a time, or not at all: the view methods return a buffer of the part
+ * of the input that holds the array, so it can be read where it is.
+ */
+public final class SnapshotIO
+{
+	private static final int CHUNK_SIZE = 8192;
+	
+	// ---- Public methods ----
+	public static final void writeInts(DataOutput out, int[] array) throws IOException
+	{
+		out.writeInt(array.length);
+		ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+		int n;
+		for(int i = 0; i < array.length; i += n)
+		{
+			n = Math.min(array.length - i, CHUNK_SIZE / 4);
+			chunk.clear();
+			chunk.asIntBuffer().put(array, i, n);
+			out.write(chunk.array(), 0, 4 * n);
+		}
+	}
+	
+	public static final int[] readInts(ByteBuffer in)
+	{
+		int[] array = new int[in.getInt()];
+		in.asIntBuffer().get(array);
+		in.position(in.position() + 4 * array.length);
+		return array;
+	}
+	
+	// The same ints as readInts, without copying them.
+	public static final IntBuffer viewInts(ByteBuffer in)
+	{
+		int length = in.getInt();
+		return slice(in, 4 * length).asIntBuffer();
+	}
+	
+	public static final void writeLongs(DataOutput out, long[] array) throws IOException
+	{
+		out.writeInt(array.length);
+		ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+		int n;
+		for(int i = 0; i < array.length; i += n)
+		{
+			n = Math.min(array.length - i, CHUNK_SIZE / 8);
+			chunk.clear();
+			chunk.asLongBuffer().put(array, i, n);
+			out.write(chunk.array(), 0, 8 * n);
+		}
+	}
+	
+	public static final long[] readLongs(ByteBuffer in)
+	{
+		long[] array = new long[in.getInt()];
+		in.asLongBuffer().get(array);
+		in.position(in.position() + 8 * array.length);
+		return array;
+	}
+	
+	public static final void writeBytes(DataOutput out, byte[] array) throws IOException
+	{
+		out.writeInt(array.length);
+		out.write(array);
+	}
+	
+	public static final byte[] readBytes(ByteBuffer in)
+	{
+		byte[] array = new byte[in.getInt()];
+		in.get(array);
+		return array;
+	}
+	
+	public static final ByteBuffer viewBytes(ByteBuffer in)
+	{
+		return slice(in, in.getInt());
+	}
+	
+	// One byte per boolean.
+	public static final void writeBooleans(DataOutput out, boolean[] array) throws IOException
+	{
+		byte[] bytes = new byte[array.length];
+		for(int i = 0; i < array.length; i++)
+			bytes[i] = array[i] ? (byte)1 : (byte)0;
+		
+		writeBytes(out, bytes);
+	}
+	
+	public static final boolean[] readBooleans(ByteBuffer in)
+	{
+		byte[] bytes = readBytes(in);
+		boolean[] array = new boolean[bytes.length];
+		for(int i = 0; i < bytes.length; i++)
+			array[i] = bytes[i] != 0;
+		
+		return array;
+	}
+	
+	// The UTF-16 code units, so any String comes back unchanged.
+	public static final void writeString(DataOutput out, String s) throws IOException
+	{
+		out.writeInt(s.length());
+		out.writeChars(s);
+	}
+	
+	public static final String readString(ByteBuffer in)
+	{
+		char[] chars = new char[in.getInt()];
+		in.asCharBuffer().get(chars);
+		in.position(in.position() + 2 * chars.length);
+		return new String(chars);
+	}
+	
+	// The characters of a String written by writeString, without copying them.
+	public static final CharBuffer viewChars(ByteBuffer in)
+	{
+		int length = in.getInt();
+		return slice(in, 2 * length).asCharBuffer();
+	}
+	
+	// ---- Private methods ----
+	// The next nrBytes of the input (which are skipped).
+	private static final ByteBuffer slice(ByteBuffer in, int nrBytes)
+	{
+		ByteBuffer slice = in.slice();
+		slice.limit(nrBytes);
+		in.position(in.position() + nrBytes);
+		return slice.order(in.order());
+	}
+}
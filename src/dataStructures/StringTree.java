@@ -19,98 +19,424 @@ package dataStructures;
  * or have any questions.
  */
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import utils.UArray;
 import utils.UFile;
 import utils.UIndentPrinter;
 
+/*
+ * A tree of word sequences, each of which can carry a value (e.g. its complexity). Words are
+ * stored as their IDs in a word table (which may be shared by several trees), so a token only has
+ * to be looked up once however many trees are searched with it. Nodes are numbers and the edges
+ * are kept in int arrays, so following an edge compares ints rather than hashing and comparing
+ * Strings.
+ * 
+ * Once all sequences have been added the tree can be minimised: nodes from which the same
+ * sequences (with the same values) follow are merged, so shared endings are only stored once.
+ * This turns the tree into a minimal acyclic transducer whose output is the value of the sequence
+ * matched. Alternatively (for very large trees) it can be encoded succinctly as a LoudsTree, which
+ * takes a few bytes per node but is slower to search. Either way it cannot be added to afterwards.
+ */
 public final class StringTree
 {
-	private final StringTreeNode root;
+	// A match holds both the number of words matched and the value of the matching sequence.
+	// Zero means there was no match.
+	public static final int NO_MATCH = 0;
+	
+	private static final int ROOT = 0;
+	private static final int NO_NODE = LoudsTree.NO_NODE;
+	private static final int INITIAL_CAPACITY = 16;
+	
+	// How a complete tree is stored when it is written.
+	private static final byte MINIMISED = 0;
+	private static final byte SUCCINCT = 1;
+	
+	public static final int getMatchLength(int match)
+	{
+		return match >>> 8;
+	}
+	
+	public static final byte getMatchValue(int match)
+	{
+		return (byte)match;
+	}
+	
+	private static final int toMatch(int length, byte value)
+	{
+		return (length << 8) | (value & 0xFF);
+	}
+	
+	// Gives every word its ID.
+	private final WordTable words;
+	
+	// The children of the root, indexed by word ID. The root has a child for (nearly) every word,
+	// so this saves searching for it.
+	private int[] rootChildren;
+	
+	// While the tree is being built: the children of each node, i.e. the word IDs (sorted) and
+	// the nodes they lead to.
+	private int[][] childWordIds;
+	private int[][] childNodes;
+	private int[] nrChildren;
+	
+	// Once the tree has been minimised: the edges of all nodes in one pair of arrays. The edges of
+	// node n are those from firstEdge[n] up to (excluding) firstEdge[n + 1].
+	private int[] firstEdge;
+	private int[] edgeWordIds;
+	private int[] edgeNodes;
+	
+	// Once the tree has been encoded succinctly: all nodes, numbered breadth first.
+	private LoudsTree louds;
+	
+	// A minimised tree that was read off-heap, used instead of all of the arrays.
+	private OffHeapTree offHeapTree;
+	
+	private boolean[] isAcceptingState;
+	private byte[] values;
+	private int nrNodes;
 	
 	public StringTree()
 	{
-		root = new StringTreeNode();
+		this(new WordTable());
 	}
 	
+	// The words of the tree are added to the given table.
+	public StringTree(WordTable words)
+	{
+		this.words = words;
+		rootChildren = new int[0];
+		childWordIds = new int[INITIAL_CAPACITY][];
+		childNodes = new int[INITIAL_CAPACITY][];
+		nrChildren = new int[INITIAL_CAPACITY];
+		isAcceptingState = new boolean[INITIAL_CAPACITY];
+		values = new byte[INITIAL_CAPACITY];
+		nrNodes = 0;
+		
+		// The root.
+		newNode();
+	}
+	
+	// ---- Public methods ----
 	public final void addValidWordSequence(String[] validSequence)
 	{
-		addValidWordSequence(UArray.arrayToArrayList(validSequence));
+		addValidWordSequence(UArray.arrayToArrayList(validSequence), (byte)0);
+	}
+	
+	public final void addValidWordSequence(String[] validSequence, byte value)
+	{
+		addValidWordSequence(UArray.arrayToArrayList(validSequence), value);
 	}
 	
 	public final void addValidWordSequence(ArrayList<String> validSequence)
+	{
+		addValidWordSequence(validSequence, (byte)0);
+	}
+	
+	// If the sequence is already in the tree it keeps the value it was first added with.
+	public final void addValidWordSequence(ArrayList<String> validSequence, byte value)
 	{
 		int sequenceLength = validSequence.size();
 		
 		if(sequenceLength == 0)
 			return;
 		
-		StringTreeNode currentNode = root;
-		StringTreeNode nextNode;
-		String currentWord;
+		if(isComplete())
+		{
+			System.out.println("Error: Cannot add to a word sequence tree once it is complete!");
+			return;
+		}
+		
+		int currentNode = ROOT;
+		int nextNode;
+		int currentWordId;
 		
 		for(int i = 0; i < sequenceLength; i++)
 		{
 			// The next word in the sequence to be added.
-			currentWord = validSequence.get(i);
+			currentWordId = words.add(validSequence.get(i));
 			
 			// Get the child node (if it already exists).
-			nextNode = currentNode.getChild(currentWord);
+			nextNode = getChild(currentNode, currentWordId);
 			
 			// The node does not yet exist.
-			if(nextNode == null)
+			if(nextNode == NO_NODE)
 			{
-				nextNode = new StringTreeNode();
-				currentNode.addChild(currentWord, nextNode);
+				nextNode = newNode();
+				addChild(currentNode, currentWordId, nextNode);
 			}
 			// Go to child node.
 			currentNode = nextNode;
 		}
 		// The valid sequence ends here, so this is an accepting state.
-		currentNode.isAcceptingState = true;
+		if(!isAcceptingState[currentNode])
+		{
+			isAcceptingState[currentNode] = true;
+			values[currentNode] = value;
+		}
 	}
 	
-	public final boolean isSingleWordValid(String word)
+	// Merges all nodes from which the same sequences (with the same values) follow. Nothing can be
+	// added afterwards.
+	public final void minimise()
 	{
-		if(root.children == null)
-			return false;
+		if(isComplete())
+			return;
 		
-		StringTreeNode childNode = root.children.get(word);
+		// Children are always created after their parents, so going backwards every node is
+		// visited after its children. Each node is replaced by the first equivalent one found.
+		int[] representative = new int[nrNodes];
+		HashMap<NodeSignature, Integer> registry = new HashMap<NodeSignature, Integer>();
+		NodeSignature signature;
+		Integer existing;
+		int nrEdges = 0;
+		for(int node = nrNodes - 1; node >= 0; node--)
+		{
+			signature = new NodeSignature(node, representative);
+			existing = registry.get(signature);
+			if(existing == null)
+			{
+				registry.put(signature, node);
+				representative[node] = node;
+				nrEdges += nrChildren[node];
+			}
+			else
+			{
+				representative[node] = existing;
+			}
+		}
 		
-		if(childNode == null)
-			return false;
+		// Number the remaining nodes, keeping their order (so the root stays node 0).
+		int[] newNumber = new int[nrNodes];
+		int nrRemaining = 0;
+		for(int node = 0; node < nrNodes; node++)
+		{
+			if(representative[node] == node)
+				newNumber[node] = nrRemaining++;
+		}
+		
+		// Copy the remaining nodes and their edges.
+		int[] minimalFirstEdge = new int[nrRemaining + 1];
+		int[] minimalEdgeWordIds = new int[nrEdges];
+		int[] minimalEdgeNodes = new int[nrEdges];
+		boolean[] minimalIsAcceptingState = new boolean[nrRemaining];
+		byte[] minimalValues = new byte[nrRemaining];
+		int edge = 0;
+		int n;
+		for(int node = 0; node < nrNodes; node++)
+		{
+			if(representative[node] != node)
+				continue;
+			
+			n = newNumber[node];
+			minimalFirstEdge[n] = edge;
+			minimalIsAcceptingState[n] = isAcceptingState[node];
+			minimalValues[n] = values[node];
+			for(int i = 0; i < nrChildren[node]; i++)
+			{
+				minimalEdgeWordIds[edge] = childWordIds[node][i];
+				minimalEdgeNodes[edge] = newNumber[representative[childNodes[node][i]]];
+				edge++;
+			}
+		}
+		minimalFirstEdge[nrRemaining] = edge;
+		
+		for(int wordId = 0; wordId < rootChildren.length; wordId++)
+		{
+			if(rootChildren[wordId] != NO_NODE)
+				rootChildren[wordId] = newNumber[representative[rootChildren[wordId]]];
+		}
+		
+		firstEdge = minimalFirstEdge;
+		edgeWordIds = minimalEdgeWordIds;
+		edgeNodes = minimalEdgeNodes;
+		isAcceptingState = minimalIsAcceptingState;
+		values = minimalValues;
+		nrNodes = nrRemaining;
+		
+		// Not needed any more.
+		childWordIds = null;
+		childNodes = null;
+		nrChildren = null;
+	}
+	
+	// Encodes the tree as a LoudsTree, which is much smaller than the tree itself (minimised or not)
+	// but slower to search. Nothing can be added afterwards. Use this or minimise, not both.
+	public final void encodeSuccinctly()
+	{
+		if(isComplete())
+			return;
+		
+		louds = new LoudsTree(nrNodes, childWordIds, childNodes, nrChildren, isAcceptingState,
+			values, words.size());
+		
+		// The nodes have been renumbered.
+		Arrays.fill(rootChildren, NO_NODE);
+		for(int i = 0; i < louds.getNrChildren(ROOT); i++)
+			rootChildren[louds.getChildWordId(ROOT, i)] = louds.getChildNode(ROOT, i);
+		
+		// Not needed any more.
+		childWordIds = null;
+		childNodes = null;
+		nrChildren = null;
+		isAcceptingState = null;
+		values = null;
+	}
+	
+	public final boolean isSingleWordValid(TokenisedSentence sentence, int i)
+	{
+		return getSingleWordMatch(sentence, i) != NO_MATCH;
+	}
+	
+	// The match of token i on its own (NO_MATCH if it isn't a valid sequence by itself).
+	public final int getSingleWordMatch(TokenisedSentence sentence, int i)
+	{
+		int childNode = getChild(ROOT, sentence.getTokenId(i, words));
+		
+		if(childNode == NO_NODE || !isAcceptingState(childNode))
+			return NO_MATCH;
 		
-		return childNode.isAcceptingState;
+		return toMatch(1, getValue(childNode));
+	}
+	
+	public final int getLongestAcceptSequenceLength(TokenisedSentence sentence, int startIndex)
+	{
+		return getMatchLength(getLongestMatch(sentence, startIndex));
 	}
 	
-	public final int getLongestAcceptSequenceLength(String[] words, int startIndex)
+	// The longest valid sequence starting at the given token, found in a single pass.
+	public final int getLongestMatch(TokenisedSentence sentence, int startIndex)
 	{
-		StringTreeNode currentNode = root;
-		String currentWord;
-		int longestSoFar = 0;
+		int currentNode = ROOT;
+		int longestSoFar = NO_MATCH;
 		
-		for(int i = startIndex; i < words.length; i++)
+		for(int i = startIndex; i < sentence.getNrTokens(); i++)
 		{
-			// The next word in the sequence to be added.
-			currentWord = words[i];
-			
-			// Get the child node (if it exists).
-			currentNode = currentNode.getChild(currentWord);
+			// Get the child node (if it exists). A word that is not in the word table has no ID
+			// and so cannot be a child of any node.
+			currentNode = getChild(currentNode, sentence.getTokenId(i, words));
 			
 			// The node does not yet exist.
-			if(currentNode == null)
+			if(currentNode == NO_NODE)
 				return longestSoFar;
 			
-			if(currentNode.isAcceptingState)
-				longestSoFar = i - startIndex + 1;
+			if(isAcceptingState(currentNode))
+				longestSoFar = toMatch(i - startIndex + 1, getValue(currentNode));
 		}
 		return longestSoFar;
 	}
 	
+	// Writes a complete tree (minimised or encoded succinctly). The words are not written, they
+	// have to be written (and read back) with the word table.
+	public final void write(DataOutput out) throws IOException
+	{
+		if(!isComplete())
+			throw new IOException("Cannot write a word sequence tree that is not complete!");
+		
+		if(offHeapTree != null)
+			throw new IOException("Cannot write a word sequence tree that was read off-heap!");
+		
+		SnapshotIO.writeInts(out, rootChildren);
+		if(louds != null)
+		{
+			out.writeByte(SUCCINCT);
+			louds.write(out);
+			return;
+		}
+		out.writeByte(MINIMISED);
+		SnapshotIO.writeInts(out, firstEdge);
+		SnapshotIO.writeInts(out, edgeWordIds);
+		SnapshotIO.writeInts(out, edgeNodes);
+		SnapshotIO.writeBooleans(out, isAcceptingState);
+		SnapshotIO.writeBytes(out, values);
+	}
+	
+	// Reads a tree written by write into this (empty) tree, which is complete afterwards. The word
+	// table must already hold the words with the same IDs as when the tree was written. Off-heap a
+	// minimised tree is searched within the given buffer (e.g. a mapped file) rather than copied
+	// out of it. A succinct tree is always copied, it is small anyway.
+	public final boolean read(ByteBuffer in, boolean offHeap)
+	{
+		if(isComplete() || getNrChildren(ROOT) != 0)
+		{
+			System.out.println("Error: Can only read into an empty word sequence tree!");
+			return false;
+		}
+		
+		IntBuffer rootChildrenView = SnapshotIO.viewInts(in);
+		byte form = in.get();
+		if(offHeap && form == MINIMISED)
+		{
+			offHeapTree = new OffHeapTree(rootChildrenView, in);
+			rootChildren = null;
+			isAcceptingState = null;
+			values = null;
+		}
+		else if(form == SUCCINCT)
+		{
+			louds = new LoudsTree(in);
+			isAcceptingState = null;
+			values = null;
+		}
+		else
+		{
+			firstEdge = SnapshotIO.readInts(in);
+			edgeWordIds = SnapshotIO.readInts(in);
+			edgeNodes = SnapshotIO.readInts(in);
+			isAcceptingState = SnapshotIO.readBooleans(in);
+			values = SnapshotIO.readBytes(in);
+			nrNodes = isAcceptingState.length;
+		}
+		
+		if(offHeapTree == null)
+		{
+			rootChildren = new int[rootChildrenView.remaining()];
+			rootChildrenView.get(rootChildren);
+		}
+		
+		// Not needed any more.
+		childWordIds = null;
+		childNodes = null;
+		nrChildren = null;
+		return true;
+	}
+	
+	// Makes this complete tree use the nodes of the other one, which must hold the same sequences
+	// (e.g. read from the same file), so they are only kept once. This is only done if every word
+	// of the other tree has the same ID in the word table of this one. Returns whether it was done.
+	public final boolean shareNodes(StringTree other)
+	{
+		if(other == this || !isComplete() || !other.isComplete() || !other.hasSameWordIds(words))
+			return false;
+		
+		rootChildren = other.rootChildren;
+		firstEdge = other.firstEdge;
+		edgeWordIds = other.edgeWordIds;
+		edgeNodes = other.edgeNodes;
+		louds = other.louds;
+		offHeapTree = other.offHeapTree;
+		isAcceptingState = other.isAcceptingState;
+		values = other.values;
+		nrNodes = other.nrNodes;
+		return true;
+	}
+	
+	// Whether this complete tree uses the same nodes as the other one.
+	public final boolean sharesNodes(StringTree other)
+	{
+		return isComplete() && firstEdge == other.firstEdge && louds == other.louds
+			&& offHeapTree == other.offHeapTree;
+	}
+	
 	public final String toString()
 	{
-		if(root.children == null)
+		if(getNrChildren(ROOT) == 0)
 			return "";
 		
 		// Initialise for recursive call.
@@ -118,26 +444,28 @@ public final class StringTree
 		UIndentPrinter indent = new UIndentPrinter("  ");
 		
 		// Recursively build the string.
-		toStringRecursive(sb, indent, root);
+		toStringRecursive(sb, indent, ROOT);
 		
 		// The recursive method adds a trailing NEWLINE which we remove.
 		sb.setLength(sb.length() - UFile.NEWLINE.length());
 		return sb.toString();
 	}
 	
-	private final void toStringRecursive(StringBuilder sb, UIndentPrinter indent, StringTreeNode node)
+	// ---- Private methods ----
+	private final void toStringRecursive(StringBuilder sb, UIndentPrinter indent, int node)
 	{
-		for(String word : node.children.keySet())
+		String word;
+		int childNode;
+		for(int i = 0; i < getNrChildren(node); i++)
 		{
-			// Note that childNode cannot be null because word is an existing key and we never
-			// put null values in the "children" HashMap.
-			StringTreeNode childNode = node.getChild(word);
+			word = words.getWord(getChildWordId(node, i));
+			childNode = getChildNode(node, i);
 			
 			sb.append(indent.toString());
-			sb.append(childNode.isAcceptingState ? "(" + word + ")" : word);
+			sb.append(isAcceptingState(childNode) ? "(" + word + ")" : word);
 			sb.append(UFile.NEWLINE);
 			
-			if(childNode != null && childNode.children != null)
+			if(getNrChildren(childNode) > 0)
 			{
 				indent.incIndent();
 				toStringRecursive(sb, indent, childNode);
@@ -146,33 +474,239 @@ public final class StringTree
 		}
 	}
 	
+	// Whether every word on an edge of this (complete) tree has the same ID in the other table.
+	// Each node is only visited once, even where the tree has been minimised.
+	private final boolean hasSameWordIds(WordTable otherWords)
+	{
+		if(otherWords == words)
+			return true;
+		
+		BitSet visited = new BitSet();
+		int[] stack = new int[INITIAL_CAPACITY];
+		int stackSize = 0;
+		stack[stackSize++] = ROOT;
+		visited.set(ROOT);
+		int node;
+		int wordId;
+		int childNode;
+		while(stackSize > 0)
+		{
+			node = stack[--stackSize];
+			for(int i = 0; i < getNrChildren(node); i++)
+			{
+				wordId = getChildWordId(node, i);
+				if(otherWords.getId(words.getWord(wordId)) != wordId)
+					return false;
+				
+				childNode = getChildNode(node, i);
+				if(visited.get(childNode))
+					continue;
+				
+				visited.set(childNode);
+				if(stackSize == stack.length)
+					stack = Arrays.copyOf(stack, 2 * stackSize);
+				stack[stackSize++] = childNode;
+			}
+		}
+		return true;
+	}
+	
+	private final boolean isMinimised()
+	{
+		return firstEdge != null;
+	}
+	
+	private final boolean isComplete()
+	{
+		return firstEdge != null || louds != null || offHeapTree != null;
+	}
+	
+	private final boolean isAcceptingState(int node)
+	{
+		if(offHeapTree != null)
+			return offHeapTree.isAcceptingState(node);
+		
+		if(louds != null)
+			return louds.isAcceptingState(node);
+		
+		return isAcceptingState[node];
+	}
+	
+	private final byte getValue(int node)
+	{
+		if(offHeapTree != null)
+			return offHeapTree.getValue(node);
+		
+		if(louds != null)
+			return louds.getValue(node);
+		
+		return values[node];
+	}
+	
+	private final int newNode()
+	{
+		if(nrNodes == nrChildren.length)
+		{
+			int capacity = 2 * nrNodes;
+			childWordIds = Arrays.copyOf(childWordIds, capacity);
+			childNodes = Arrays.copyOf(childNodes, capacity);
+			nrChildren = Arrays.copyOf(nrChildren, capacity);
+			isAcceptingState = Arrays.copyOf(isAcceptingState, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		return nrNodes++;
+	}
+	
+	private final void addChild(int node, int wordId, int childNode)
+	{
+		// Also index the children of the root by word ID.
+		if(node == ROOT)
+		{
+			if(wordId >= rootChildren.length)
+			{
+				int oldLength = rootChildren.length;
+				rootChildren = Arrays.copyOf(rootChildren, Math.max(wordId + 1, 2 * oldLength));
+				Arrays.fill(rootChildren, oldLength, rootChildren.length, NO_NODE);
+			}
+			rootChildren[wordId] = childNode;
+		}
+		
+		int n = nrChildren[node];
+		if(childWordIds[node] == null)
+		{
+			childWordIds[node] = new int[1];
+			childNodes[node] = new int[1];
+		}
+		else if(n == childWordIds[node].length)
+		{
+			childWordIds[node] = Arrays.copyOf(childWordIds[node], 2 * n);
+			childNodes[node] = Arrays.copyOf(childNodes[node], 2 * n);
+		}
+		int[] ids = childWordIds[node];
+		int[] nodes = childNodes[node];
+		
+		// Keep the IDs sorted.
+		int i = n;
+		while(i > 0 && ids[i - 1] > wordId)
+		{
+			ids[i] = ids[i - 1];
+			nodes[i] = nodes[i - 1];
+			i--;
+		}
+		ids[i] = wordId;
+		nodes[i] = childNode;
+		nrChildren[node] = n + 1;
+	}
+	
+	private final int getChild(int node, int wordId)
+	{
+		if(wordId == WordTable.NO_ID)
+			return NO_NODE;
+		
+		if(offHeapTree != null)
+			return offHeapTree.getChild(node, wordId);
+		
+		if(node == ROOT)
+			return wordId < rootChildren.length ? rootChildren[wordId] : NO_NODE;
+		
+		if(louds != null)
+			return louds.getChild(node, wordId);
+		
+		// Binary search.
+		int low = 0;
+		int high = getNrChildren(node) - 1;
+		int mid;
+		int midWordId;
+		while(low <= high)
+		{
+			mid = (low + high) >>> 1;
+			midWordId = getChildWordId(node, mid);
+			if(midWordId < wordId)
+				low = mid + 1;
+			else if(midWordId > wordId)
+				high = mid - 1;
+			else
+				return getChildNode(node, mid);
+		}
+		return NO_NODE;
+	}
+	
+	private final int getNrChildren(int node)
+	{
+		if(offHeapTree != null)
+			return offHeapTree.getNrChildren(node);
+		
+		if(louds != null)
+			return louds.getNrChildren(node);
+		
+		if(isMinimised())
+			return firstEdge[node + 1] - firstEdge[node];
+		
+		return nrChildren[node];
+	}
+	
+	private final int getChildWordId(int node, int i)
+	{
+		if(offHeapTree != null)
+			return offHeapTree.getChildWordId(node, i);
+		
+		if(louds != null)
+			return louds.getChildWordId(node, i);
+		
+		if(isMinimised())
+			return edgeWordIds[firstEdge[node] + i];
+		
+		return childWordIds[node][i];
+	}
+	
+	private final int getChildNode(int node, int i)
+	{
+		if(offHeapTree != null)
+			return offHeapTree.getChildNode(node, i);
+		
+		if(louds != null)
+			return louds.getChildNode(node, i);
+		
+		if(isMinimised())
+			return edgeNodes[firstEdge[node] + i];
+		
+		return childNodes[node][i];
+	}
+	
 	// ---- Private inner class ----
-	private final class StringTreeNode
+	// Everything that makes two nodes equivalent: whether they accept, their values and their
+	// edges (leading to nodes that have already been replaced by their representatives).
+	private final class NodeSignature
 	{
-		public HashMap<String, StringTreeNode> children;
-		public boolean isAcceptingState;
+		private final int[] data;
+		private final int hash;
 		
 		// Constructor.
-		public StringTreeNode()
+		public NodeSignature(int node, int[] representative)
 		{
-			isAcceptingState = false;
-			children = null;
+			int n = nrChildren[node];
+			data = new int[2 + 2 * n];
+			data[0] = isAcceptingState[node] ? 1 : 0;
+			data[1] = values[node];
+			for(int i = 0; i < n; i++)
+			{
+				data[2 + 2 * i] = childWordIds[node][i];
+				data[3 + 2 * i] = representative[childNodes[node][i]];
+			}
+			hash = Arrays.hashCode(data);
 		}
 		
-		public final void addChild(String word, StringTreeNode childNode)
+		public final int hashCode()
 		{
-			if(children == null)
-				children = new HashMap<String, StringTreeNode>();
-			
-			children.put(word, childNode);
+			return hash;
 		}
 		
-		public final StringTreeNode getChild(String word)
+		public final boolean equals(Object other)
 		{
-			if(children == null)
-				return null;
+			if(!(other instanceof NodeSignature))
+				return false;
 			
-			return children.get(word);
+			return Arrays.equals(data, ((NodeSignature)other).data);
 		}
 	}
 }
@@ -0,0 +1,105 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/*
+ * An immutable sequence of bits that can count the ones before any position (rank) and find the
+ * position of the k-th zero (select) without going through all the bits. The count of ones
+ * before each 64-bit word is stored, which adds half a bit per bit.
+ */
+final class SuccinctBitVector
+{
+	private final long[] bits;
+	
+	// Number of ones in all words before each word.
+	private final int[] onesBefore;
+	
+	// Constructor. The bits are not copied, so the array must not be changed afterwards.
+	SuccinctBitVector(long[] bits)
+	{
+		this.bits = bits;
+		this.onesBefore = new int[bits.length + 1];
+		for(int i = 0; i < bits.length; i++)
+			onesBefore[i + 1] = onesBefore[i] + Long.bitCount(bits[i]);
+	}
+	
+	// Reads a bit vector written by write.
+	SuccinctBitVector(ByteBuffer in)
+	{
+		this(SnapshotIO.readLongs(in));
+	}
+	
+	// ---- Package-private methods ----
+	// The number of 64-bit words needed for the given number of bits (plus one spare, so rank
+	// works for every position up to and including the last).
+	static final int nrWords(int nrBits)
+	{
+		return (nrBits >>> 6) + 1;
+	}
+	
+	static final void set(long[] bits, int i)
+	{
+		bits[i >>> 6] |= 1L << i;
+	}
+	
+	final void write(DataOutput out) throws IOException
+	{
+		SnapshotIO.writeLongs(out, bits);
+	}
+	
+	final boolean get(int i)
+	{
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+	
+	// The number of ones before position i.
+	final int rank1(int i)
+	{
+		return onesBefore[i >>> 6] + Long.bitCount(bits[i >>> 6] & ((1L << i) - 1));
+	}
+	
+	// The position of the k-th zero (counting from 1).
+	final int select0(int k)
+	{
+		// Find the last word with fewer than k zeros before it.
+		int low = 0;
+		int high = bits.length - 1;
+		int mid;
+		while(low < high)
+		{
+			mid = (low + high + 1) >>> 1;
+			if(64 * mid - onesBefore[mid] < k)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		
+		// Drop the zeros of that word before the one we want.
+		long zeros = ~bits[low];
+		for(int j = 64 * low - onesBefore[low] + 1; j < k; j++)
+			zeros &= zeros - 1;
+		
+		return 64 * low + Long.numberOfTrailingZeros(zeros);
+	}
+}
@@ -0,0 +1,210 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+// Counts how often each symbol (code point) occurs. Used to collect unknown characters.
+public final class SymbolCounts
+{
+	// Must be a power of two.
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int EMPTY = -1;
+	
+	// Open addressing hash table from code point to count.
+	private int[] codePoints;
+	private int[] counts;
+	private int nrDistinct;
+	private long total;
+	
+	// Constructor.
+	public SymbolCounts()
+	{
+		codePoints = newEmptyKeys(INITIAL_CAPACITY);
+		counts = new int[INITIAL_CAPACITY];
+		nrDistinct = 0;
+		total = 0;
+	}
+	
+	// ---- Public methods ----
+	public final void add(int codePoint)
+	{
+		add(codePoint, 1);
+	}
+	
+	public final void add(int codePoint, int count)
+	{
+		int slot = findSlot(codePoints, codePoint);
+		
+		// A new symbol.
+		if(codePoints[slot] == EMPTY)
+		{
+			// Keep the table at most half full.
+			if(2 * (nrDistinct + 1) > codePoints.length)
+			{
+				grow();
+				slot = findSlot(codePoints, codePoint);
+			}
+			codePoints[slot] = codePoint;
+			nrDistinct++;
+		}
+		counts[slot] += count;
+		total += count;
+	}
+	
+	public final void addAll(SymbolCounts other)
+	{
+		for(int i = 0; i < other.codePoints.length; i++)
+		{
+			if(other.codePoints[i] != EMPTY)
+				add(other.codePoints[i], other.counts[i]);
+		}
+	}
+	
+	public final int getNrDistinct()
+	{
+		return nrDistinct;
+	}
+	
+	public final long getTotal()
+	{
+		return total;
+	}
+	
+	public final boolean isEmpty()
+	{
+		return nrDistinct == 0;
+	}
+	
+	// A table of all symbols, the most frequent one first.
+	public final MyTable<String> toTable()
+	{
+		MyTable<String> table = new MyTable<String>();
+		table.setColLabels(new String[]
+		{
+			"Count", "Code point", "Symbol"
+		});
+		
+		for(int slot : slotsByDescendingCount())
+		{
+			table.addRow(new String[]
+			{
+				"" + counts[slot],
+				codePointName(codePoints[slot]),
+				">" + new String(Character.toChars(codePoints[slot])) + "<"
+			});
+		}
+		return table;
+	}
+	
+	// All symbols on one line, the most frequent one first.
+	public final String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		for(int slot : slotsByDescendingCount())
+		{
+			if(sb.length() > 0)
+				sb.append(", ");
+			
+			sb.append(codePointName(codePoints[slot]));
+			sb.append(" >");
+			sb.appendCodePoint(codePoints[slot]);
+			sb.append("< x");
+			sb.append(counts[slot]);
+		}
+		return sb.toString();
+	}
+	
+	// ---- Private methods ----
+	private final int[] slotsByDescendingCount()
+	{
+		int[] slots = new int[nrDistinct];
+		int n = 0;
+		for(int i = 0; i < codePoints.length; i++)
+		{
+			if(codePoints[i] != EMPTY)
+				slots[n++] = i;
+		}
+		
+		// Insertion sort, there are only ever a few distinct symbols. Ties by code point.
+		for(int i = 1; i < n; i++)
+		{
+			int slot = slots[i];
+			int j = i - 1;
+			while(j >= 0 && comesBefore(slot, slots[j]))
+			{
+				slots[j + 1] = slots[j];
+				j--;
+			}
+			slots[j + 1] = slot;
+		}
+		return slots;
+	}
+	
+	private final boolean comesBefore(int slotA, int slotB)
+	{
+		if(counts[slotA] != counts[slotB])
+			return counts[slotA] > counts[slotB];
+		
+		return codePoints[slotA] < codePoints[slotB];
+	}
+	
+	private final void grow()
+	{
+		int[] oldCodePoints = codePoints;
+		int[] oldCounts = counts;
+		
+		codePoints = newEmptyKeys(2 * oldCodePoints.length);
+		counts = new int[codePoints.length];
+		
+		int slot;
+		for(int i = 0; i < oldCodePoints.length; i++)
+		{
+			if(oldCodePoints[i] != EMPTY)
+			{
+				slot = findSlot(codePoints, oldCodePoints[i]);
+				codePoints[slot] = oldCodePoints[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+	
+	private static final int findSlot(int[] keys, int codePoint)
+	{
+		// Linear probing.
+		int mask = keys.length - 1;
+		int hash = codePoint * 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while(keys[slot] != EMPTY && keys[slot] != codePoint)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	
+	private static final int[] newEmptyKeys(int capacity)
+	{
+		int[] keys = new int[capacity];
+		for(int i = 0; i < capacity; i++)
+			keys[i] = EMPTY;
+		return keys;
+	}
+	
+	private static final String codePointName(int codePoint)
+	{
+		return String.format("U+%04X", codePoint);
+	}
+}
@@ -0,0 +1,281 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+/*
+ * A cleaned sentence split into tokens. The characters are kept in one buffer and each token is
+ * only a start and length within it, so no String has to be created per token. The same instance
+ * is reused for one sentence after the other, which means nothing may hold on to it (or its
+ * tokens) once the sentence has been analysed.
+ */
+public final class TokenisedSentence
+{
+	private static final int INITIAL_CAPACITY = 16;
+	
+	// Marks a token ID that has not been looked up yet.
+	private static final int UNKNOWN_ID = -2;
+	
+	// The cleaned sentence.
+	private char[] chars;
+	
+	// Where each token is in the buffer.
+	private int[] tokenStarts;
+	private int[] tokenLengths;
+	private int nrTokens;
+	
+	// The ID of each token in idWords, looked up the first time it is needed.
+	private int[] tokenIds;
+	private WordTable idWords;
+	
+	// One (reused) view per token.
+	private Token[] tokens;
+	
+	// Constructor.
+	public TokenisedSentence()
+	{
+		chars = new char[4 * INITIAL_CAPACITY];
+		tokenStarts = new int[INITIAL_CAPACITY];
+		tokenLengths = new int[INITIAL_CAPACITY];
+		tokenIds = new int[INITIAL_CAPACITY];
+		tokens = new Token[INITIAL_CAPACITY];
+		nrTokens = 0;
+	}
+	
+	// ---- Public methods ----
+	// The buffer to write a new sentence into. Its previous content is lost.
+	public final char[] getCharBuffer(int capacity)
+	{
+		if(chars.length < capacity)
+			chars = new char[Math.max(capacity, 2 * chars.length)];
+		
+		return chars;
+	}
+	
+	// Splits the first length characters of the buffer into tokens. This gives the same tokens as
+	// String.trim followed by String.split("\\s+"), including a single empty token if nothing is
+	// left after trimming.
+	public final void tokenise(int length)
+	{
+		int start = 0;
+		int end = length;
+		nrTokens = 0;
+		
+		// Trim.
+		while(start < end && chars[start] <= ' ')
+			start++;
+		while(end > start && chars[end - 1] <= ' ')
+			end--;
+		
+		if(start == end)
+		{
+			addToken(start, 0);
+			return;
+		}
+		
+		int tokenStart;
+		int i = start;
+		while(i < end)
+		{
+			// Find the end of the current token.
+			tokenStart = i;
+			while(i < end && !isWhiteSpace(chars[i]))
+				i++;
+			addToken(tokenStart, i - tokenStart);
+			
+			// Skip the whitespace up to the next token.
+			while(i < end && isWhiteSpace(chars[i]))
+				i++;
+		}
+	}
+	
+	public final int getNrTokens()
+	{
+		return nrTokens;
+	}
+	
+	public final int getTokenStart(int i)
+	{
+		return tokenStarts[i];
+	}
+	
+	public final int getTokenLength(int i)
+	{
+		return tokenLengths[i];
+	}
+	
+	// Moves a token within the buffer, e.g. to cut off a prefix or postfix. The caller is
+	// responsible for putting it back.
+	public final void setToken(int i, int start, int length)
+	{
+		tokenStarts[i] = start;
+		tokenLengths[i] = length;
+		tokenIds[i] = UNKNOWN_ID;
+	}
+	
+	// The ID of token i in the given word table (WordTable.NO_ID if it isn't in there). Each token
+	// is only looked up once, unless it is moved or a different table is used.
+	public final int getTokenId(int i, WordTable words)
+	{
+		if(words != idWords)
+		{
+			idWords = words;
+			for(int j = 0; j < nrTokens; j++)
+				tokenIds[j] = UNKNOWN_ID;
+		}
+		
+		if(tokenIds[i] == UNKNOWN_ID)
+			tokenIds[i] = words.getId(tokens[i]);
+		
+		return tokenIds[i];
+	}
+	
+	// A view of the current characters of token i.
+	public final CharSequence getToken(int i)
+	{
+		return tokens[i];
+	}
+	
+	public final String getTokenText(int i)
+	{
+		return new String(chars, tokenStarts[i], tokenLengths[i]);
+	}
+	
+	public final String getText(int start, int length)
+	{
+		return new String(chars, start, length);
+	}
+	
+	public final boolean tokenEquals(int i, String s)
+	{
+		return tokenLengths[i] == s.length() && regionMatches(tokenStarts[i], s);
+	}
+	
+	public final boolean tokenEndsWith(int i, String s)
+	{
+		return tokenLengths[i] >= s.length()
+			&& regionMatches(tokenStarts[i] + tokenLengths[i] - s.length(), s);
+	}
+	
+	// All tokens separated by single spaces. Tokens never contain whitespace, so splitting this
+	// string at the spaces gives back the tokens.
+	public final String joinTokens()
+	{
+		int length = nrTokens - 1;
+		for(int i = 0; i < nrTokens; i++)
+			length += tokenLengths[i];
+		
+		char[] joined = new char[length];
+		int position = 0;
+		for(int i = 0; i < nrTokens; i++)
+		{
+			if(i > 0)
+				joined[position++] = ' ';
+			
+			System.arraycopy(chars, tokenStarts[i], joined, position, tokenLengths[i]);
+			position += tokenLengths[i];
+		}
+		return new String(joined);
+	}
+	
+	public final String toString()
+	{
+		return joinTokens();
+	}
+	
+	// ---- Private methods ----
+	private final void addToken(int start, int length)
+	{
+		if(nrTokens == tokenStarts.length)
+		{
+			int capacity = 2 * tokenStarts.length;
+			tokenStarts = copyOf(tokenStarts, capacity);
+			tokenLengths = copyOf(tokenLengths, capacity);
+			tokenIds = copyOf(tokenIds, capacity);
+			
+			Token[] moreTokens = new Token[capacity];
+			System.arraycopy(tokens, 0, moreTokens, 0, tokens.length);
+			tokens = moreTokens;
+		}
+		
+		// Views are only created the first time a position is used.
+		if(tokens[nrTokens] == null)
+			tokens[nrTokens] = new Token(nrTokens);
+		
+		tokenStarts[nrTokens] = start;
+		tokenLengths[nrTokens] = length;
+		tokenIds[nrTokens] = UNKNOWN_ID;
+		nrTokens++;
+	}
+	
+	private final boolean regionMatches(int start, String s)
+	{
+		for(int i = 0; i < s.length(); i++)
+		{
+			if(chars[start + i] != s.charAt(i))
+				return false;
+		}
+		return true;
+	}
+	
+	private static final int[] copyOf(int[] array, int capacity)
+	{
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+	
+	// The characters matched by "\s" in a regular expression.
+	private static final boolean isWhiteSpace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+	
+	// ---- Private inner class ----
+	private final class Token implements CharSequence
+	{
+		private final int index;
+		
+		// Constructor.
+		public Token(int index)
+		{
+			this.index = index;
+		}
+		
+		public final int length()
+		{
+			return tokenLengths[index];
+		}
+		
+		public final char charAt(int i)
+		{
+			return chars[tokenStarts[index] + i];
+		}
+		
+		public final CharSequence subSequence(int start, int end)
+		{
+			return getText(tokenStarts[index] + start, end - start);
+		}
+		
+		public final String toString()
+		{
+			return getTokenText(index);
+		}
+	}
+}
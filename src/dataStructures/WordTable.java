@@ -0,0 +1,308 @@
+package dataStructures;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+// A set of words that can be searched with any CharSequence (e.g. a token of a TokenisedSentence).
+// Finding a word returns the stored String, so it can be used as a key without creating a new one.
+// Every word is also given an ID: the words are numbered 0, 1, 2, ... in the order they were added.
+public final class WordTable
+{
+	// The ID of any word that is not in the table.
+	public static final int NO_ID = -1;
+	
+	// Must be a power of two.
+	private static final int INITIAL_CAPACITY = 16;
+	
+	// Open addressing hash table. A null word marks an empty slot.
+	private String[] words;
+	private int[] hashes;
+	private int[] ids;
+	private int nrWords;
+	
+	// The words by ID.
+	private String[] wordsById;
+	
+	// Used instead of the arrays above once the table has been read off-heap: the hash table
+	// (IDs and hashes by slot), where each word starts in the characters of all words (by ID,
+	// plus the end of the last one) and those characters. Nothing can be added then.
+	private IntBuffer offHeapIds;
+	private IntBuffer offHeapHashes;
+	private IntBuffer offHeapStarts;
+	private CharBuffer offHeapChars;
+	
+	// Constructor.
+	public WordTable()
+	{
+		words = new String[INITIAL_CAPACITY];
+		hashes = new int[INITIAL_CAPACITY];
+		ids = new int[INITIAL_CAPACITY];
+		wordsById = new String[INITIAL_CAPACITY];
+		nrWords = 0;
+	}
+	
+	// ---- Public methods ----
+	// Returns the ID of the word, which is only new if the word wasn't in the table yet.
+	public final int add(String word)
+	{
+		if(offHeapIds != null)
+		{
+			System.out.println("Error: Cannot add to a word table that was read off-heap!");
+			return NO_ID;
+		}
+		
+		int hash = word.hashCode();
+		int slot = findSlot(words, hashes, word, hash);
+		
+		// Already there.
+		if(words[slot] != null)
+			return ids[slot];
+		
+		// Keep the table at most half full.
+		if(2 * (nrWords + 1) > words.length)
+		{
+			grow();
+			slot = findSlot(words, hashes, word, hash);
+		}
+		if(nrWords == wordsById.length)
+			wordsById = Arrays.copyOf(wordsById, 2 * nrWords);
+		
+		words[slot] = word;
+		hashes[slot] = hash;
+		ids[slot] = nrWords;
+		wordsById[nrWords] = word;
+		return nrWords++;
+	}
+	
+	// Returns the stored word with the same characters or null if there is none.
+	public final String find(CharSequence word)
+	{
+		// There are no stored Strings.
+		if(offHeapIds != null)
+		{
+			int id = getId(word);
+			return id == NO_ID ? null : getWord(id);
+		}
+		
+		int hash = hashCode(word);
+		return words[findSlot(words, hashes, word, hash)];
+	}
+	
+	// Returns the ID of the word with the same characters or NO_ID if there is none.
+	public final int getId(CharSequence word)
+	{
+		if(offHeapIds != null)
+			return getOffHeapId(word, hashCode(word));
+		
+		int slot = findSlot(words, hashes, word, hashCode(word));
+		return words[slot] == null ? NO_ID : ids[slot];
+	}
+	
+	public final String getWord(int id)
+	{
+		if(offHeapIds != null)
+			return offHeapChars.subSequence(offHeapStarts.get(id), offHeapStarts.get(id + 1))
+				.toString();
+		
+		return wordsById[id];
+	}
+	
+	public final int size()
+	{
+		return nrWords;
+	}
+	
+	// Replaces every word that is also in the other table with the String stored there, so tables
+	// with many words in common share one copy of them. The IDs don't change. Tables read
+	// off-heap have no Strings to share.
+	public final void shareWords(WordTable otherWords)
+	{
+		if(offHeapIds != null || otherWords.offHeapIds != null)
+			return;
+		
+		String word;
+		for(int slot = 0; slot < words.length; slot++)
+		{
+			if(words[slot] != null && (word = otherWords.find(words[slot])) != null)
+			{
+				words[slot] = word;
+				wordsById[ids[slot]] = word;
+			}
+		}
+	}
+	
+	// Writes the words in order of their IDs, followed by the hash table (so it can be searched
+	// where it is when read off-heap).
+	public final void write(DataOutput out) throws IOException
+	{
+		if(offHeapIds != null)
+			throw new IOException("Cannot write a word table that was read off-heap!");
+		
+		StringBuilder chars = new StringBuilder();
+		int[] starts = new int[nrWords + 1];
+		for(int id = 0; id < nrWords; id++)
+		{
+			starts[id] = chars.length();
+			chars.append(wordsById[id]);
+		}
+		starts[nrWords] = chars.length();
+		
+		int[] slotIds = new int[words.length];
+		for(int slot = 0; slot < words.length; slot++)
+			slotIds[slot] = words[slot] == null ? NO_ID : ids[slot];
+		
+		out.writeInt(nrWords);
+		SnapshotIO.writeString(out, chars.toString());
+		SnapshotIO.writeInts(out, starts);
+		SnapshotIO.writeInts(out, slotIds);
+		SnapshotIO.writeInts(out, hashes);
+	}
+	
+	// Reads the words written by write into this (empty) table, giving them the same IDs as
+	// before. Off-heap the table is searched within the given buffer (e.g. a mapped file) rather
+	// than copied out of it, and nothing can be added afterwards.
+	public final boolean read(ByteBuffer in, boolean offHeap)
+	{
+		if(nrWords != 0 || offHeapIds != null)
+		{
+			System.out.println("Error: Can only read into an empty word table!");
+			return false;
+		}
+		
+		int nrWordsToRead = in.getInt();
+		CharBuffer chars = SnapshotIO.viewChars(in);
+		IntBuffer starts = SnapshotIO.viewInts(in);
+		IntBuffer slotIds = SnapshotIO.viewInts(in);
+		IntBuffer slotHashes = SnapshotIO.viewInts(in);
+		if(offHeap)
+		{
+			offHeapChars = chars;
+			offHeapStarts = starts;
+			offHeapIds = slotIds;
+			offHeapHashes = slotHashes;
+			nrWords = nrWordsToRead;
+			
+			// Not needed any more.
+			words = null;
+			hashes = null;
+			ids = null;
+			wordsById = null;
+			return true;
+		}
+		
+		for(int id = 0; id < nrWordsToRead; id++)
+			add(chars.subSequence(starts.get(id), starts.get(id + 1)).toString());
+		return true;
+	}
+	
+	// ---- Private methods ----
+	// The same search as findSlot, in the hash table read off-heap.
+	private final int getOffHeapId(CharSequence word, int hash)
+	{
+		int mask = offHeapIds.limit() - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		int id;
+		while((id = offHeapIds.get(slot)) != NO_ID)
+		{
+			if(offHeapHashes.get(slot) == hash && sameOffHeapChars(id, word))
+				return id;
+			
+			slot = (slot + 1) & mask;
+		}
+		return NO_ID;
+	}
+	
+	private final boolean sameOffHeapChars(int id, CharSequence word)
+	{
+		int start = offHeapStarts.get(id);
+		int n = offHeapStarts.get(id + 1) - start;
+		if(word.length() != n)
+			return false;
+		
+		for(int i = 0; i < n; i++)
+		{
+			if(offHeapChars.get(start + i) != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+	
+	private final void grow()
+	{
+		String[] oldWords = words;
+		int[] oldHashes = hashes;
+		int[] oldIds = ids;
+		
+		words = new String[2 * oldWords.length];
+		hashes = new int[words.length];
+		ids = new int[words.length];
+		
+		int slot;
+		for(int i = 0; i < oldWords.length; i++)
+		{
+			if(oldWords[i] != null)
+			{
+				slot = findSlot(words, hashes, oldWords[i], oldHashes[i]);
+				words[slot] = oldWords[i];
+				hashes[slot] = oldHashes[i];
+				ids[slot] = oldIds[i];
+			}
+		}
+	}
+	
+	private static final int findSlot(String[] words, int[] hashes, CharSequence word, int hash)
+	{
+		// Linear probing.
+		int mask = words.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while(words[slot] != null && (hashes[slot] != hash || !sameChars(words[slot], word)))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	
+	// The same value String.hashCode gives for the same characters.
+	private static final int hashCode(CharSequence word)
+	{
+		int hash = 0;
+		for(int i = 0; i < word.length(); i++)
+			hash = 31 * hash + word.charAt(i);
+		return hash;
+	}
+	
+	private static final boolean sameChars(String a, CharSequence b)
+	{
+		int n = a.length();
+		if(b.length() != n)
+			return false;
+		
+		for(int i = 0; i < n; i++)
+		{
+			if(a.charAt(i) != b.charAt(i))
+				return false;
+		}
+		return true;
+	}
+}
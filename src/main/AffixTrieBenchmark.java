@@ -0,0 +1,167 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import utils.UFile;
+import dataStructures.CharTree;
+import dataStructures.DoubleArrayTrie;
+
+/*
+ * Measures how fast the integrated prefixes and postfixes of every token are found, in the
+ * CharTrees the lexicon is built with against the DoubleArrayTries built from them. Both must find
+ * the same lengths for every token. Run with "java main.AffixTrieBenchmark [folder of .txt files]".
+ */
+public final class AffixTrieBenchmark
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int NR_RUNS = 30;
+	
+	// Small samples are gone through several times per run, so the timer has something to measure.
+	private static final int MIN_TOKENS_PER_RUN = 1000000;
+	
+	// Keeps the JIT compiler from dropping the work.
+	private static long checksum;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	public static final void main(String[] args)
+	{
+		NormalisationProfile normalisationProfile = NormalisationProfile.read(Config.CONFIG_FOLDER);
+		if(normalisationProfile == null)
+		{
+			System.out.println("Error: Could not read the alphabet or the substitution file!");
+			return;
+		}
+		ArrayList<String> sentences = BenchmarkSupport.readSentences(args);
+		if(sentences == null)
+			return;
+		
+		// The same trees as ConfigReader builds.
+		final CharTree prefixTree = new CharTree();
+		final CharTree postfixTree = new CharTree();
+		for(String prefix : readAffixes(normalisationProfile, Config.PREFIX_FILE))
+			prefixTree.addValidCharacterSequence_leftToRight(prefix);
+		for(String postfix : readAffixes(normalisationProfile, Config.POSTFIX_FILE))
+			postfixTree.addValidCharacterSequence_rightToLeft(postfix);
+		final DoubleArrayTrie prefixTrie = new DoubleArrayTrie(prefixTree);
+		final DoubleArrayTrie postfixTrie = new DoubleArrayTrie(postfixTree);
+		
+		final String[] tokens = toArray(BenchmarkSupport.readTokens(normalisationProfile,
+			sentences));
+		final int[] lengths = new int[Math.max(prefixTree.getMaxSequenceLength(),
+			postfixTree.getMaxSequenceLength())];
+		final int[] expectedLengths = new int[lengths.length];
+		final int nrPasses = (MIN_TOKENS_PER_RUN + tokens.length - 1) / tokens.length;
+		
+		// Both must find the same lengths.
+		for(String token : tokens)
+		{
+			BenchmarkSupport.check(sameLengths(
+				prefixTree.getAllAcceptSequenceLengths_leftToRight(token, 0, expectedLengths),
+				expectedLengths,
+				prefixTrie.getAllAcceptSequenceLengths_leftToRight(token, 0, lengths), lengths),
+				"Different prefixes of " + token);
+			BenchmarkSupport.check(sameLengths(
+				postfixTree.getAllAcceptSequenceLengths_rightToLeft(token, token.length() - 1,
+				expectedLengths), expectedLengths,
+				postfixTrie.getAllAcceptSequenceLengths_rightToLeft(token, token.length() - 1,
+				lengths), lengths), "Different postfixes of " + token);
+		}
+		
+		long treeNanos = BenchmarkSupport.bestOf(NR_RUNS, new Runnable()
+		{
+			public void run()
+			{
+				for(int pass = 0; pass < nrPasses; pass++)
+				{
+					for(String token : tokens)
+					{
+						checksum += prefixTree.getAllAcceptSequenceLengths_leftToRight(token, 0,
+							lengths);
+						checksum += postfixTree.getAllAcceptSequenceLengths_rightToLeft(token,
+							token.length() - 1, lengths);
+					}
+				}
+			}
+		});
+		long trieNanos = BenchmarkSupport.bestOf(NR_RUNS, new Runnable()
+		{
+			public void run()
+			{
+				for(int pass = 0; pass < nrPasses; pass++)
+				{
+					for(String token : tokens)
+					{
+						checksum += prefixTrie.getAllAcceptSequenceLengths_leftToRight(token, 0,
+							lengths);
+						checksum += postfixTrie.getAllAcceptSequenceLengths_rightToLeft(token,
+							token.length() - 1, lengths);
+					}
+				}
+			}
+		});
+		
+		long nrLookups = (long)nrPasses * tokens.length;
+		System.out.println("Prefix and postfix lookups of " + tokens.length + " tokens: CharTree "
+			+ treeNanos / nrLookups + " ns/token, DoubleArrayTrie " + trieNanos / nrLookups
+			+ " ns/token.");
+		System.out.println("(checksum " + checksum + ")");
+	}
+	
+	// The cleaned affixes of a prefix or postfix file, read the same way as by ConfigReader.
+	private static final ArrayList<String> readAffixes(NormalisationProfile normalisationProfile,
+		String fileName)
+	{
+		ArrayList<String> affixes = new ArrayList<String>();
+		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, fileName);
+		ArrayList<String> lines = br == null ? null : UFile.readLines(br);
+		if(lines == null)
+		{
+			System.out.println("Warning: Could not read " + fileName);
+			return affixes;
+		}
+		
+		for(String line : lines)
+		{
+			String[] affixAndValue = line.trim().split(UFile.ANY_WHITE_SPACE_REG_EX);
+			if(affixAndValue.length == 2)
+				affixes.add(normalisationProfile.cleanString(affixAndValue[0]));
+		}
+		return affixes;
+	}
+	
+	private static final boolean sameLengths(int nrExpected, int[] expected, int nrFound,
+		int[] found)
+	{
+		return nrFound == nrExpected && Arrays.equals(Arrays.copyOf(found, nrFound),
+			Arrays.copyOf(expected, nrExpected));
+	}
+	
+	private static final String[] toArray(ArrayList<String> list)
+	{
+		return list.toArray(new String[list.size()]);
+	}
+}
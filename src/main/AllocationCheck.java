@@ -0,0 +1,218 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import analyser.AnalysisContext;
+import analyser.Lexicon;
+import dataStructures.SentenceSummary;
+import dataStructures.TokenisedSentence;
+
+/*
+ * Checks that tokenising a sentence and running the complexity checks over it allocate nothing per
+ * token once the JIT compiler has warmed up. Two sentences made of words without a match are
+ * compared, a short and a long one, so the fixed cost of each sentence (its summary) drops out.
+ * What each match costs is only reported, as the matches are kept in the summary. Run with
+ * "java main.AllocationCheck [folder of .txt files]".
+ */
+public final class AllocationCheck
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int SHORT_SENTENCE_LENGTH = 10;
+	private static final int LONG_SENTENCE_LENGTH = 400;
+	private static final int NR_WARM_UP_RUNS = 200000;
+	private static final int NR_RUNS = 10000;
+	
+	// Keeps the JIT compiler from dropping the work.
+	private static long checksum;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	public static final void main(String[] args)
+	{
+		com.sun.management.ThreadMXBean threadBean =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		if(!threadBean.isThreadAllocatedMemorySupported())
+		{
+			System.out.println("Error: This JVM does not count the bytes allocated by a thread!");
+			return;
+		}
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		
+		Lexicon lexicon = Lexicon.read();
+		if(lexicon == null)
+			return;
+		ArrayList<String> sentences = BenchmarkSupport.readSentences(args);
+		if(sentences == null)
+			return;
+		
+		AnalysisContext context = AnalysisContext.get();
+		ArrayList<String> words = findWordsWithoutMatch(lexicon, context, sentences);
+		String shortSentence = buildSentenceWithoutMatch(lexicon, context, words,
+			SHORT_SENTENCE_LENGTH);
+		String longSentence = buildSentenceWithoutMatch(lexicon, context, words,
+			LONG_SENTENCE_LENGTH);
+		BenchmarkSupport.check(shortSentence != null && longSentence != null,
+			"No words without a match in the text");
+		
+		// Every path is compiled before anything is counted, including that of the matches.
+		for(int i = 0; i < NR_WARM_UP_RUNS; i++)
+		{
+			analyse(lexicon, context, shortSentence);
+			analyse(lexicon, context, longSentence);
+			analyse(lexicon, context, sentences.get(i % sentences.size()));
+		}
+		
+		BenchmarkSupport.check(analyse(lexicon, context, longSentence).nrTokens
+			== LONG_SENTENCE_LENGTH, "The long sentence does not have " + LONG_SENTENCE_LENGTH
+			+ " tokens");
+		
+		// Per run, rounded down, so counting itself doesn't show up.
+		long tokeniseBytes = allocatedBytes(threadBean, lexicon, context, longSentence, false)
+			/ NR_RUNS;
+		long shortBytes = allocatedBytes(threadBean, lexicon, context, shortSentence, true)
+			/ NR_RUNS;
+		long longBytes = allocatedBytes(threadBean, lexicon, context, longSentence, true)
+			/ NR_RUNS;
+		
+		System.out.println("Tokenising: " + tokeniseBytes + " bytes per sentence of "
+			+ LONG_SENTENCE_LENGTH + " tokens.");
+		System.out.println("Tokenising and checking: " + shortBytes + " bytes per sentence of "
+			+ SHORT_SENTENCE_LENGTH + " tokens, " + longBytes + " bytes per sentence of "
+			+ LONG_SENTENCE_LENGTH + " tokens.");
+		BenchmarkSupport.check(tokeniseBytes == 0, "Tokenising allocates "
+			+ (double)tokeniseBytes / LONG_SENTENCE_LENGTH + " bytes per token");
+		BenchmarkSupport.check(longBytes == shortBytes, "Tokenising and checking allocates "
+			+ (double)(longBytes - shortBytes) / (LONG_SENTENCE_LENGTH - SHORT_SENTENCE_LENGTH)
+			+ " bytes per token");
+		
+		reportMatches(threadBean, lexicon, context, sentences);
+		System.out.println("Passed: 0 bytes per token. (checksum " + checksum + ")");
+	}
+	
+	// The distinct tokens of the text that are not a match on their own.
+	private static final ArrayList<String> findWordsWithoutMatch(Lexicon lexicon,
+		AnalysisContext context, ArrayList<String> sentences)
+	{
+		ArrayList<String> words = new ArrayList<String>();
+		HashSet<String> seen = new HashSet<String>();
+		for(String token : BenchmarkSupport.readTokens(lexicon.normalisationProfile, sentences))
+		{
+			if(!seen.add(token))
+				continue;
+			
+			analyse(lexicon, context, token);
+			if(context.tokenisedSentence.getNrTokens() == 1 && context.complexityMatches.isEmpty())
+				words.add(token);
+		}
+		return words;
+	}
+	
+	// A sentence of the given number of words and without a match. Words are left out from the
+	// end until no sequence of them makes up a match either. Returns null if there is none.
+	private static final String buildSentenceWithoutMatch(Lexicon lexicon,
+		AnalysisContext context, ArrayList<String> wordsWithoutMatch, int nrWords)
+	{
+		ArrayList<String> words = new ArrayList<String>(wordsWithoutMatch);
+		String sentence;
+		while(!words.isEmpty())
+		{
+			sentence = buildSentence(words, nrWords);
+			analyse(lexicon, context, sentence);
+			if(context.complexityMatches.isEmpty())
+				return sentence;
+			
+			words.remove(words.size() - 1);
+		}
+		return null;
+	}
+	
+	private static final String buildSentence(ArrayList<String> words, int nrWords)
+	{
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < nrWords; i++)
+		{
+			if(i > 0)
+				sb.append(' ');
+			sb.append(words.get(i % words.size()));
+		}
+		return sb.append('.').toString();
+	}
+	
+	// The same two steps as the file analyser takes for every sentence.
+	private static final SentenceSummary analyse(Lexicon lexicon, AnalysisContext context,
+		String sentence)
+	{
+		lexicon.normalisationProfile.tokenise(sentence, context.tokenisedSentence);
+		SentenceSummary sentenceSummary = lexicon.analyseSentence(sentence, context);
+		checksum += sentenceSummary.getLcCount() + sentenceSummary.getHcCount();
+		return sentenceSummary;
+	}
+	
+	private static final long allocatedBytes(com.sun.management.ThreadMXBean threadBean,
+		Lexicon lexicon, AnalysisContext context, String sentence, boolean check)
+	{
+		TokenisedSentence tokenisedSentence = context.tokenisedSentence;
+		long threadId = Thread.currentThread().getId();
+		long start = threadBean.getThreadAllocatedBytes(threadId);
+		for(int i = 0; i < NR_RUNS; i++)
+		{
+			if(check)
+			{
+				analyse(lexicon, context, sentence);
+			}
+			else
+			{
+				lexicon.normalisationProfile.tokenise(sentence, tokenisedSentence);
+				checksum += tokenisedSentence.getNrTokens();
+			}
+		}
+		return threadBean.getThreadAllocatedBytes(threadId) - start;
+	}
+	
+	// The matches are kept in the summary, so they can't be free. This shows what they cost.
+	private static final void reportMatches(com.sun.management.ThreadMXBean threadBean,
+		Lexicon lexicon, AnalysisContext context, ArrayList<String> sentences)
+	{
+		long nrTokens = 0;
+		long nrMatches = 0;
+		for(String sentence : sentences)
+		{
+			analyse(lexicon, context, sentence);
+			nrTokens += context.tokenisedSentence.getNrTokens();
+			nrMatches += context.complexityMatches.size();
+		}
+		
+		long threadId = Thread.currentThread().getId();
+		long start = threadBean.getThreadAllocatedBytes(threadId);
+		for(String sentence : sentences)
+			analyse(lexicon, context, sentence);
+		long bytes = threadBean.getThreadAllocatedBytes(threadId) - start;
+		
+		System.out.println("The text: " + sentences.size() + " sentences, " + nrTokens
+			+ " tokens, " + nrMatches + " matches, " + bytes + " bytes ("
+			+ (nrMatches == 0 ? 0 : bytes / nrMatches) + " per match, summaries included).");
+	}
+}
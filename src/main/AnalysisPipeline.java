@@ -0,0 +1,500 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.CharsetDecoder;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import analyser.FileAnalyser;
+import analyser.SentenceSegmenter;
+import analyser.SentenceSource;
+import dataStructures.FileSummary;
+import dataStructures.FolderSummary;
+import dataStructures.LexiconComparison;
+
+/*
+ * Processes the files of a folder in three stages that run at the same time: reading (and
+ * splitting into sentences), analysing and writing the summaries. The stages hand their work on
+ * through bounded queues, so a fast stage waits for a slow one rather than piling up data in
+ * memory. Files go through every stage in order, so the results are the same as processing one
+ * file after the other.
+ */
+final class AnalysisPipeline
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	// Sentences are handed from the reading to the analysing stage in batches of this size.
+	private static final int BATCH_SIZE = 256;
+	
+	// Marks the end of the queues. Should it ever turn up in the middle of a file (because the
+	// reading stage died), the file counts as one that could not be read to the end.
+	private static final Batch NO_MORE_BATCHES = new Batch(null, true, true);
+	private static final FileJob NO_MORE_FILES = new FileJob(null, null);
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	private final FileAnalyser analyser;
+	
+	// One per lexicon of the analyser.
+	private final FolderSummary[] folderSummaries;
+	private final String[] outputFolders;
+	
+	// Null if there is only one lexicon.
+	private final LexiconComparison lexiconComparison;
+	
+	// Between reading and analysing.
+	private final BlockingQueue<Batch> sentenceQueue;
+	
+	// Between analysing and writing.
+	private final BlockingQueue<FileJob> summaryQueue;
+	
+	private final StageStatistics readStatistics;
+	private final StageStatistics analyseStatistics;
+	private final StageStatistics writeStatistics;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	public AnalysisPipeline(FileAnalyser analyser, FolderSummary[] folderSummaries,
+		String[] outputFolders, LexiconComparison lexiconComparison)
+	{
+		this.analyser = analyser;
+		this.folderSummaries = folderSummaries;
+		this.outputFolders = outputFolders;
+		this.lexiconComparison = lexiconComparison;
+		
+		sentenceQueue = new ArrayBlockingQueue<Batch>(Config.PIPELINE_QUEUE_SIZE);
+		summaryQueue = new ArrayBlockingQueue<FileJob>(Config.PIPELINE_QUEUE_SIZE);
+		
+		readStatistics = new StageStatistics("Read", "sentences");
+		analyseStatistics = new StageStatistics("Analyse", "sentences");
+		writeStatistics = new StageStatistics("Write", "files");
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Adds the summaries of all source files to the folder summaries.
+	public final void run(final File[] sourceFiles)
+	{
+		Thread readThread = new Thread("Read stage")
+		{
+			public void run()
+			{
+				readFiles(sourceFiles);
+			}
+		};
+		Thread analyseThread = new Thread("Analyse stage")
+		{
+			public void run()
+			{
+				analyseFiles();
+			}
+		};
+		readThread.start();
+		analyseThread.start();
+		
+		// The summaries are written on the calling thread.
+		writeFiles();
+		
+		try
+		{
+			readThread.join();
+			analyseThread.join();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		System.out.println(readStatistics);
+		System.out.println(analyseStatistics);
+		System.out.println(writeStatistics);
+		System.out.println();
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	// ------------------ STAGE 1: READ --------------
+	
+	private final void readFiles(File[] sourceFiles)
+	{
+		// Used for every (memory-mapped) source file in turn.
+		CharsetDecoder decoder = MappedFileReader.newDecoder();
+		
+		try
+		{
+			for(File sourceFile : sourceFiles)
+			{
+				// Skip directories and files that don't have a .txt extension.
+				if(!PersianAnalyser.isSourceFile(sourceFile))
+					continue;
+				
+				System.out.println("Analysing: " + sourceFile.getAbsolutePath());
+				
+				// Open the file to be analysed. Skip this file if it cannot be read.
+				Reader fileReader = PersianAnalyser.openSourceFile(sourceFile, decoder);
+				if(fileReader == null)
+					continue;
+				
+				// Create the output files for the summaries. Skip this file in case of failure.
+				BufferedWriter[] fileWriters = PersianAnalyser.openOutputFiles(outputFolders,
+					sourceFile);
+				if(fileWriters == null)
+				{
+					PersianAnalyser.closeFileReader(fileReader);
+					continue;
+				}
+				
+				readFile(new FileJob(sourceFile, fileWriters), fileReader);
+				PersianAnalyser.closeFileReader(fileReader);
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			// Always let the next stage know, otherwise it would wait forever.
+			putUninterruptibly(sentenceQueue, NO_MORE_BATCHES);
+		}
+	}
+	
+	private final void readFile(FileJob fileJob, Reader fileReader) throws InterruptedException
+	{
+		SentenceSegmenter sentenceSegmenter = new SentenceSegmenter(fileReader);
+		Batch batch = new Batch(fileJob);
+		String sentence;
+		
+		long start = System.nanoTime();
+		try
+		{
+			while((sentence = sentenceSegmenter.nextSentence()) != null)
+			{
+				batch.sentences.add(sentence);
+				readStatistics.nrItems++;
+				
+				// Hand on a full batch.
+				if(batch.sentences.size() == BATCH_SIZE)
+				{
+					readStatistics.busy(start);
+					readStatistics.put(sentenceQueue, batch);
+					start = System.nanoTime();
+					
+					batch = new Batch(fileJob);
+				}
+			}
+		}
+		catch(IOException e)
+		{
+			// The analysis of this file fails when it gets to this batch.
+			batch.readFailed = true;
+		}
+		catch(RuntimeException e)
+		{
+			// Don't let one file stop the whole pipeline.
+			System.out.println("Error reading " + fileJob.sourceFile.getName() + ": " + e);
+			batch.readFailed = true;
+		}
+		catch(Error e)
+		{
+			// The analysing stage has to finish this file before it sees the end of the queue.
+			batch.readFailed = true;
+			batch.isLastBatch = true;
+			putUninterruptibly(sentenceQueue, batch);
+			throw e;
+		}
+		readStatistics.busy(start);
+		
+		batch.isLastBatch = true;
+		readStatistics.put(sentenceQueue, batch);
+	}
+	
+	// ------------------ STAGE 2: ANALYSE --------------
+	
+	private final void analyseFiles()
+	{
+		try
+		{
+			Batch batch;
+			BatchedSentences sentenceSource;
+			while((batch = analyseStatistics.take(sentenceQueue)) != NO_MORE_BATCHES)
+			{
+				sentenceSource = new BatchedSentences(batch);
+				
+				long start = System.nanoTime();
+				try
+				{
+					batch.fileJob.fileSummaries =
+						analyser.analyseSentencesWithEachLexicon(sentenceSource);
+				}
+				catch(RuntimeException e)
+				{
+					// Don't let one file stop the whole pipeline.
+					System.out.println("Error analysing " + batch.fileJob.sourceFile.getName() + ": "
+						+ e);
+					batch.fileJob.fileSummaries = null;
+				}
+				analyseStatistics.busy(start);
+				
+				// The rest of the file (if any) is of no use after a failure.
+				sentenceSource.skipRemainingBatches();
+				
+				analyseStatistics.put(summaryQueue, batch.fileJob);
+				
+				// The reading stage died in the middle of this file.
+				if(sentenceSource.reachedEndOfInput())
+					break;
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			putUninterruptibly(summaryQueue, NO_MORE_FILES);
+		}
+	}
+	
+	// ------------------ STAGE 3: WRITE --------------
+	
+	private final void writeFiles()
+	{
+		try
+		{
+			FileJob fileJob;
+			while((fileJob = writeStatistics.take(summaryQueue)) != NO_MORE_FILES)
+			{
+				long start = System.nanoTime();
+				PersianAnalyser.writeFileSummaries(fileJob.sourceFile, fileJob.fileSummaries,
+					fileJob.fileWriters, folderSummaries, lexiconComparison);
+				
+				writeStatistics.nrItems++;
+				writeStatistics.busy(start);
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	// ------------------ HELPERS --------------
+	
+	private static final <T> void putUninterruptibly(BlockingQueue<T> queue, T element)
+	{
+		boolean interrupted = false;
+		while(true)
+		{
+			try
+			{
+				queue.put(element);
+				break;
+			}
+			catch(InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+	}
+	
+	private static final <T> T takeUninterruptibly(BlockingQueue<T> queue)
+	{
+		boolean interrupted = false;
+		T element;
+		while(true)
+		{
+			try
+			{
+				element = queue.take();
+				break;
+			}
+			catch(InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+		return element;
+	}
+	
+	// ---- Private inner classes ----
+	// A source file on its way through the pipeline.
+	private static final class FileJob
+	{
+		public final File sourceFile;
+		
+		// One per lexicon.
+		public final BufferedWriter[] fileWriters;
+		public FileSummary[] fileSummaries;
+		
+		// Constructor.
+		public FileJob(File sourceFile, BufferedWriter[] fileWriters)
+		{
+			this.sourceFile = sourceFile;
+			this.fileWriters = fileWriters;
+		}
+	}
+	
+	// Consecutive sentences of one file.
+	private static final class Batch
+	{
+		public final FileJob fileJob;
+		public final ArrayList<String> sentences;
+		public boolean isLastBatch;
+		public boolean readFailed;
+		
+		// Constructor.
+		public Batch(FileJob fileJob)
+		{
+			this(fileJob, false, false);
+		}
+		
+		// Constructor.
+		public Batch(FileJob fileJob, boolean isLastBatch, boolean readFailed)
+		{
+			this.fileJob = fileJob;
+			this.sentences = new ArrayList<String>(BATCH_SIZE);
+			this.isLastBatch = isLastBatch;
+			this.readFailed = readFailed;
+		}
+	}
+	
+	// The sentences of one file as they arrive from the reading stage.
+	private final class BatchedSentences implements SentenceSource
+	{
+		private final FileJob fileJob;
+		private Batch batch;
+		private int position;
+		
+		// Constructor.
+		public BatchedSentences(Batch firstBatch)
+		{
+			fileJob = firstBatch.fileJob;
+			batch = firstBatch;
+			position = 0;
+		}
+		
+		public final String nextSentence() throws IOException
+		{
+			while(position == batch.sentences.size())
+			{
+				// The file could not be read to the end.
+				if(batch.readFailed)
+					throw new IOException("Could not read " + fileJob.sourceFile);
+				
+				if(batch.isLastBatch)
+					return null;
+				
+				batch = nextBatch();
+				position = 0;
+			}
+			analyseStatistics.nrItems++;
+			return batch.sentences.get(position++);
+		}
+		
+		public final void skipRemainingBatches()
+		{
+			while(!batch.isLastBatch)
+				batch = nextBatch();
+		}
+		
+		// Whether the end of the queue was taken in place of the rest of this file.
+		public final boolean reachedEndOfInput()
+		{
+			return batch == NO_MORE_BATCHES;
+		}
+		
+		private final Batch nextBatch()
+		{
+			// The time spent waiting for the next batch is not part of the analysis.
+			long start = System.nanoTime();
+			Batch next = takeUninterruptibly(sentenceQueue);
+			long waited = System.nanoTime() - start;
+			analyseStatistics.waitNanos += waited;
+			analyseStatistics.busyNanos -= waited;
+			return next;
+		}
+	}
+	
+	// How much work a stage did and how long it was busy or waiting for other stages.
+	private static final class StageStatistics
+	{
+		private final String name;
+		private final String itemName;
+		public long nrItems;
+		public long busyNanos;
+		public long waitNanos;
+		
+		// Constructor.
+		public StageStatistics(String name, String itemName)
+		{
+			this.name = name;
+			this.itemName = itemName;
+		}
+		
+		public final void busy(long start)
+		{
+			busyNanos += System.nanoTime() - start;
+		}
+		
+		public final <T> void put(BlockingQueue<T> queue, T element) throws InterruptedException
+		{
+			long start = System.nanoTime();
+			queue.put(element);
+			waitNanos += System.nanoTime() - start;
+		}
+		
+		public final <T> T take(BlockingQueue<T> queue) throws InterruptedException
+		{
+			long start = System.nanoTime();
+			T element = queue.take();
+			waitNanos += System.nanoTime() - start;
+			return element;
+		}
+		
+		public final String toString()
+		{
+			long busyMillis = busyNanos / 1000000;
+			long waitMillis = waitNanos / 1000000;
+			long perSecond = busyNanos > 0 ? nrItems * 1000000000L / busyNanos : 0;
+			
+			return name + " stage: " + nrItems + " " + itemName + " in " + busyMillis + " ms ("
+				+ perSecond + " " + itemName + "/s), waited " + waitMillis + " ms for other stages.";
+		}
+	}
+}
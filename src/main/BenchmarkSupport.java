@@ -0,0 +1,185 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.CharsetDecoder;
+import java.util.ArrayList;
+import analyser.SentenceSegmenter;
+import dataStructures.TokenisedSentence;
+import utils.UFile;
+
+/*
+ * Shared by the benchmarks and checks in this package, which are run by hand, e.g.
+ * "java main.NormaliserBenchmark <folder>". They work on the sentences of the .txt files in the
+ * folder given as the first argument. Without one, the words of the LC and HC files are put
+ * together into sentences, so there is always some real Farsi text to work on.
+ */
+final class BenchmarkSupport
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int WORDS_PER_SENTENCE = 12;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// Returns null (and tells the user) if there is no text.
+	static final ArrayList<String> readSentences(String[] args)
+	{
+		ArrayList<String> sentences = args.length > 0 ? readSourceFolder(new File(args[0]))
+			: readConfigWords();
+		
+		if(sentences == null || sentences.isEmpty())
+		{
+			System.out.println("Error: No text to work on!");
+			return null;
+		}
+		return sentences;
+	}
+	
+	// The tokens of all sentences as they are after cleaning.
+	static final ArrayList<String> readTokens(NormalisationProfile normalisationProfile,
+		ArrayList<String> sentences)
+	{
+		ArrayList<String> tokens = new ArrayList<String>();
+		TokenisedSentence tokenisedSentence = new TokenisedSentence();
+		for(String sentence : sentences)
+		{
+			normalisationProfile.tokenise(sentence, tokenisedSentence);
+			for(int i = 0; i < tokenisedSentence.getNrTokens(); i++)
+			{
+				if(tokenisedSentence.getTokenLength(i) > 0)
+					tokens.add(tokenisedSentence.getTokenText(i));
+			}
+		}
+		return tokens;
+	}
+	
+	// The fastest of the given number of runs in nanoseconds. The slower first runs warm up the
+	// JIT compiler.
+	static final long bestOf(int nrRuns, Runnable run)
+	{
+		long best = Long.MAX_VALUE;
+		long start;
+		for(int i = 0; i < nrRuns; i++)
+		{
+			start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+	
+	// Ends the program with an error code, so a failed check can't be missed.
+	static final void check(boolean condition, String message)
+	{
+		if(condition)
+			return;
+		
+		System.out.println("FAILED: " + message);
+		System.exit(1);
+	}
+	
+	private static final ArrayList<String> readSourceFolder(File sourceFolder)
+	{
+		File[] sourceFiles = sourceFolder.listFiles();
+		if(sourceFiles == null)
+			return null;
+		
+		ArrayList<String> sentences = new ArrayList<String>();
+		CharsetDecoder decoder = MappedFileReader.newDecoder();
+		Reader fileReader;
+		SentenceSegmenter sentenceSegmenter;
+		String sentence;
+		for(File sourceFile : sourceFiles)
+		{
+			if(!PersianAnalyser.isSourceFile(sourceFile))
+				continue;
+			
+			fileReader = PersianAnalyser.openSourceFile(sourceFile, decoder);
+			if(fileReader == null)
+				continue;
+			
+			try
+			{
+				sentenceSegmenter = new SentenceSegmenter(fileReader);
+				while((sentence = sentenceSegmenter.nextSentence()) != null)
+					sentences.add(sentence);
+			}
+			catch(IOException e)
+			{
+				System.out.println("Warning: Could not read " + sourceFile.getName());
+			}
+			PersianAnalyser.closeFileReader(fileReader);
+		}
+		return sentences;
+	}
+	
+	private static final ArrayList<String> readConfigWords()
+	{
+		ArrayList<String> words = new ArrayList<String>();
+		if(!readWords(Config.LC_FILE, words) || !readWords(Config.HC_FILE, words))
+			return null;
+		
+		ArrayList<String> sentences = new ArrayList<String>();
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < words.size(); i++)
+		{
+			sb.append(words.get(i));
+			if((i + 1) % WORDS_PER_SENTENCE == 0 || i + 1 == words.size())
+			{
+				sb.append('.');
+				sentences.add(sb.toString());
+				sb.setLength(0);
+			}
+			else
+			{
+				sb.append(' ');
+			}
+		}
+		return sentences;
+	}
+	
+	private static final boolean readWords(String fileName, ArrayList<String> words)
+	{
+		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, fileName);
+		if(br == null)
+			return false;
+		
+		ArrayList<String> lines = UFile.readLines(br);
+		if(lines == null)
+			return false;
+		
+		for(String line : lines)
+		{
+			for(String word : line.trim().split(UFile.ANY_WHITE_SPACE_REG_EX))
+			{
+				if(!word.isEmpty())
+					words.add(word);
+			}
+		}
+		return true;
+	}
+}
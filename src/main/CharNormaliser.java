@@ -0,0 +1,503 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+import utils.UChar;
+
+/*
+ * Compiled form of the substitution and deletion rules applied by Config.cleanString.
+ * Rules with a single character lhs collapse into one table lookup per character. Rules with a
+ * longer lhs are stored in a trie that is walked from the current position; the longest rule
+ * starting at the leftmost position wins. The tables are built once and never modified
+ * afterwards, which makes an instance safe to share between threads.
+ */
+public final class CharNormaliser
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int TABLE_SIZE = Character.MAX_VALUE + 1;
+	
+	// What to do with a character. The flag marks characters that start a multi-character rule.
+	private static final byte KEEP = 0;
+	private static final byte MAP = 1;
+	private static final byte DELETE = 2;
+	private static final byte EXPAND = 3;
+	private static final byte ACTION_MASK = 3;
+	private static final byte STARTS_RULE = 4;
+	
+	// Number of built-in substitutions that are applied before the user defined ones.
+	private static final int NR_BUILT_IN_SUBSTITUTIONS = 4;
+	
+	// Characters with a special meaning in a regular expression (lhs) or replacement (rhs).
+	// Rules containing them cannot be treated as plain character rules.
+	private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+	private static final String REPLACEMENT_META_CHARACTERS = "\\$";
+	
+	// Equivalent of the regular expression "\p{Punct}" (which only covers US-ASCII).
+	private static final String PUNCTUATION = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// Returns null if any of the rules cannot be compiled. In that case the caller has to fall back
+	// to applying the rules one at a time as regular expressions.
+	public static final CharNormaliser compile(ArrayList<String[]> substitutionRules,
+		ArrayList<String> deletionRules)
+	{
+		// The built-in rules must be single characters.
+		if(!isSingleChar(UChar.ZERO_WIDTH_NON_JOINER_S) || !isSingleChar(UChar.HALF_SPACE_S)
+			|| !isSingleChar(UChar.RIGHT_TO_LEFT_OVERRIDE_S)
+			|| !isSingleChar(UChar.LEFT_TO_RIGHT_OVERRIDE_S)
+			|| !isSingleChar(UChar.POP_DIRECTIONAL_FORMATTING_S))
+		{
+			return null;
+		}
+		
+		// The user defined ones must be plain strings.
+		for(String[] rule : substitutionRules)
+		{
+			if(!isLiteral(rule[0]) || containsAnyOf(rule[1], REPLACEMENT_META_CHARACTERS))
+				return null;
+		}
+		for(String rule : deletionRules)
+		{
+			if(!isLiteral(rule))
+				return null;
+		}
+		return new CharNormaliser(substitutionRules, deletionRules);
+	}
+	
+	private static final boolean isSingleChar(String s)
+	{
+		return s.length() == 1 && !Character.isSurrogate(s.charAt(0));
+	}
+	
+	private static final boolean isLiteral(String s)
+	{
+		if(s.length() == 0 || containsAnyOf(s, REGEX_META_CHARACTERS))
+			return false;
+		
+		// A lone surrogate can neither be looked up in the table nor matched by a regex.
+		return s.length() > 1 || isSingleChar(s);
+	}
+	
+	private static final boolean containsAnyOf(String s, String characters)
+	{
+		for(int i = 0; i < s.length(); i++)
+		{
+			if(characters.indexOf(s.charAt(i)) >= 0)
+				return true;
+		}
+		return false;
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	// One entry per UTF-16 code unit.
+	private final byte[] actions;
+	private final char[] mappedChars;
+	
+	// Replacement strings of more than one character (expected to be rare).
+	private final HashMap<Character, String> expansions;
+	
+	// The built-in substitutions (all of which produce a space).
+	private final char[] builtInSubstitutionChars;
+	
+	// Trie of the rules with a multi-character lhs. Node 0 is the root. The children of a node are
+	// stored next to each other, sorted by label. Accepting nodes have a non-null replacement.
+	private final int[] firstChild;
+	private final int[] nrChildren;
+	private final char[] childLabels;
+	private final int[] childNodes;
+	private final String[] replacements;
+	
+	// No character (or multi-character lhs) is ever replaced by more than this many characters.
+	private final int maxReplacementLength;
+	
+	// Scratch data only used while compiling.
+	private ArrayList<String[]> orderedSubstitutions;
+	private ArrayList<String> orderedDeletions;
+	private boolean[] deleted;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	private CharNormaliser(ArrayList<String[]> substitutionRules, ArrayList<String> deletionRules)
+	{
+		actions = new byte[TABLE_SIZE];
+		mappedChars = new char[TABLE_SIZE];
+		expansions = new HashMap<Character, String>();
+		builtInSubstitutionChars = new char[]
+		{
+			UChar.ZERO_WIDTH_NON_JOINER_S.charAt(0), UChar.HALF_SPACE_S.charAt(0), '(', ')'
+		};
+		
+		// The substitution rules in the order Config.performSubstitutions applies them.
+		orderedSubstitutions = new ArrayList<String[]>();
+		for(char c : builtInSubstitutionChars)
+			orderedSubstitutions.add(new String[]{String.valueOf(c), " "});
+		orderedSubstitutions.addAll(substitutionRules);
+		orderedDeletions = deletionRules;
+		
+		// The characters removed by Config.performDeletions.
+		deleted = new boolean[TABLE_SIZE];
+		deleted[UChar.RIGHT_TO_LEFT_OVERRIDE_S.charAt(0)] = true;
+		deleted[UChar.LEFT_TO_RIGHT_OVERRIDE_S.charAt(0)] = true;
+		deleted[UChar.POP_DIRECTIONAL_FORMATTING_S.charAt(0)] = true;
+		for(int i = 0; i < PUNCTUATION.length(); i++)
+			deleted[PUNCTUATION.charAt(i)] = true;
+		
+		// Fill in the single character table. Only a rule whose lhs is exactly c (or a deletion) can
+		// change the string consisting of c alone, all other characters are kept as they are.
+		for(String[] rule : orderedSubstitutions)
+		{
+			if(rule[0].length() == 1)
+				setAction(rule[0].charAt(0), applyRules(rule[0], 0));
+		}
+		for(String rule : orderedDeletions)
+		{
+			if(rule.length() == 1)
+				setAction(rule.charAt(0), applyRules(rule, 0));
+		}
+		for(int c = 0; c < TABLE_SIZE; c++)
+		{
+			if(deleted[c])
+				setAction((char)c, applyRules(String.valueOf((char)c), 0));
+		}
+		
+		// Collect the multi-character rules. Substitutions take priority over deletions with the
+		// same lhs, otherwise the rule that comes first wins.
+		ArrayList<TrieNode> nodes = new ArrayList<TrieNode>();
+		nodes.add(new TrieNode());
+		for(int i = NR_BUILT_IN_SUBSTITUTIONS; i < orderedSubstitutions.size(); i++)
+		{
+			String[] rule = orderedSubstitutions.get(i);
+			if(rule[0].length() > 1)
+				addRule(nodes, rule[0], applyRules(rule[1], i + 1));
+		}
+		for(String rule : orderedDeletions)
+		{
+			if(rule.length() > 1)
+				addRule(nodes, rule, "");
+		}
+		
+		// Flatten the trie into arrays.
+		int nrNodes = nodes.size();
+		firstChild = new int[nrNodes];
+		nrChildren = new int[nrNodes];
+		childLabels = new char[nrNodes - 1];
+		childNodes = new int[nrNodes - 1];
+		replacements = new String[nrNodes];
+		
+		int nrEdges = 0;
+		for(int i = 0; i < nrNodes; i++)
+		{
+			TrieNode node = nodes.get(i);
+			firstChild[i] = nrEdges;
+			nrChildren[i] = node.children.size();
+			replacements[i] = node.replacement;
+			
+			for(Character label : node.children.keySet())
+			{
+				childLabels[nrEdges] = label;
+				childNodes[nrEdges] = node.children.get(label);
+				nrEdges++;
+			}
+		}
+		
+		// Mark the characters at which a multi-character rule can start.
+		for(int i = 0; i < nrChildren[0]; i++)
+			markRuleStart(childLabels[i]);
+		
+		// Needed to know how much room the output may take up.
+		int maxLength = 1;
+		for(String expansion : expansions.values())
+			maxLength = Math.max(maxLength, expansion.length());
+		for(String replacement : replacements)
+		{
+			if(replacement != null)
+				maxLength = Math.max(maxLength, replacement.length());
+		}
+		maxReplacementLength = maxLength;
+		
+		orderedSubstitutions = null;
+		orderedDeletions = null;
+		deleted = null;
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	// Produces the same result as performSubstitutions, performDeletions and trim in Config as long
+	// as all rules are single characters. Multi-character rules are all matched against the text
+	// after the built-in substitutions (rather than against the output of earlier rules) and the
+	// leftmost, longest one wins. Their replacement still goes through all later rules.
+	public final String normalise(String s)
+	{
+		int n = s.length();
+		
+		// Most strings need no changes at all. In that case there is no need to copy anything.
+		int i = skipKeptChars(s, 0, n);
+		if(i == n)
+			return s.trim();
+		
+		// Something has to change. Leave enough room in case replacements are longer than their lhs.
+		char[] out = new char[maxNormalisedLength(n)];
+		int outLength = normalise(s, i, out, true);
+		
+		// Trim the same characters String.trim does.
+		int start = 0;
+		while(start < outLength && out[start] <= ' ')
+			start++;
+		while(outLength > start && out[outLength - 1] <= ' ')
+			outLength--;
+		
+		return new String(out, start, outLength - start);
+	}
+	
+	// Writes the normalised (but not trimmed) s into out and returns its length. The array must
+	// have room for at least maxNormalisedLength(s.length()) characters.
+	public final int normalise(String s, char[] out)
+	{
+		return normalise(s, 0, out, true);
+	}
+	
+	// The same without copying unchanged runs in bulk, i.e. one character at a time. Only used as
+	// the baseline of NormaliserBenchmark.
+	final int normaliseCharByChar(String s, char[] out)
+	{
+		return normalise(s, 0, out, false);
+	}
+	
+	// The longest string normalising n characters can produce.
+	public final int maxNormalisedLength(int n)
+	{
+		return n * maxReplacementLength;
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	// The first i characters of s are known to stay as they are.
+	private final int normalise(String s, int i, char[] out, boolean copyRuns)
+	{
+		int n = s.length();
+		s.getChars(0, i, out, 0);
+		int outLength = i;
+		int runEnd;
+		int action;
+		char c;
+		
+		while(i < n)
+		{
+			// Copy a run of characters that stay as they are in one go.
+			runEnd = copyRuns ? skipKeptChars(s, i, n) : i;
+			if(runEnd > i)
+			{
+				s.getChars(i, runEnd, out, outLength);
+				outLength += runEnd - i;
+				i = runEnd;
+				if(i == n)
+					break;
+			}
+			
+			c = s.charAt(i);
+			action = actions[c];
+			
+			// Look for a multi-character rule starting here.
+			if((action & STARTS_RULE) != 0)
+			{
+				int matchNode = 0;
+				int matchEnd = i;
+				int node = 0;
+				int j = i;
+				while(j < n)
+				{
+					// Follow the next character (if possible).
+					node = findChild(node, builtInSubstitution(s.charAt(j++)));
+					if(node < 0)
+						break;
+					
+					// Remember the longest rule found so far.
+					if(replacements[node] != null)
+					{
+						matchNode = node;
+						matchEnd = j;
+					}
+				}
+				
+				if(matchEnd > i)
+				{
+					outLength = append(out, outLength, replacements[matchNode]);
+					i = matchEnd;
+					continue;
+				}
+				action &= ACTION_MASK;
+			}
+			
+			switch(action)
+			{
+				case KEEP:
+					out[outLength++] = c;
+					break;
+				case MAP:
+					out[outLength++] = mappedChars[c];
+					break;
+				case DELETE:
+					break;
+				default:
+					outLength = append(out, outLength, expansions.get(c));
+					break;
+			}
+			i++;
+		}
+		return outLength;
+	}
+	
+	// Runs s through the substitutions starting with the given index, then through all deletions.
+	// This is exactly what Config.performSubstitutions and performDeletions do to s.
+	private final String applyRules(String s, int firstSubstitution)
+	{
+		// Plain string replacement is equivalent to replaceAll for literal rules.
+		for(int i = firstSubstitution; i < orderedSubstitutions.size(); i++)
+			s = s.replace(orderedSubstitutions.get(i)[0], orderedSubstitutions.get(i)[1]);
+		
+		// The built-in deletions come first.
+		StringBuilder sb = new StringBuilder(s.length());
+		for(int i = 0; i < s.length(); i++)
+		{
+			if(!deleted[s.charAt(i)])
+				sb.append(s.charAt(i));
+		}
+		s = sb.toString();
+		
+		for(String rule : orderedDeletions)
+			s = s.replace(rule, "");
+		return s;
+	}
+	
+	private final void setAction(char c, String result)
+	{
+		if(result.length() == 0)
+		{
+			actions[c] = DELETE;
+		}
+		else if(result.length() == 1)
+		{
+			actions[c] = result.charAt(0) == c ? KEEP : MAP;
+			mappedChars[c] = result.charAt(0);
+		}
+		else
+		{
+			actions[c] = EXPAND;
+			expansions.put(c, result);
+		}
+	}
+	
+	private final void markRuleStart(char c)
+	{
+		actions[c] |= STARTS_RULE;
+		
+		// Rules are matched after the built-in substitutions, which all produce a space.
+		if(c == ' ')
+		{
+			for(char builtIn : builtInSubstitutionChars)
+				actions[builtIn] |= STARTS_RULE;
+		}
+	}
+	
+	private final void addRule(ArrayList<TrieNode> nodes, String lhs, String replacement)
+	{
+		TrieNode node = nodes.get(0);
+		for(int i = 0; i < lhs.length(); i++)
+		{
+			Integer child = node.children.get(lhs.charAt(i));
+			if(child == null)
+			{
+				child = nodes.size();
+				nodes.add(new TrieNode());
+				node.children.put(lhs.charAt(i), child);
+			}
+			node = nodes.get(child);
+		}
+		
+		// Keep the replacement of a rule with the same lhs that came first.
+		if(node.replacement == null)
+			node.replacement = replacement;
+	}
+	
+	// Returns the index of the first character from start on that is not simply kept.
+	private final int skipKeptChars(String s, int start, int end)
+	{
+		// A character that starts a multi-character rule is never KEEP (the flag is set).
+		int i = start;
+		while(i < end && actions[s.charAt(i)] == KEEP)
+			i++;
+		return i;
+	}
+	
+	private final char builtInSubstitution(char c)
+	{
+		for(char builtIn : builtInSubstitutionChars)
+		{
+			if(c == builtIn)
+				return ' ';
+		}
+		return c;
+	}
+	
+	private final int findChild(int node, char label)
+	{
+		// Binary search among the sorted children.
+		int low = firstChild[node];
+		int high = low + nrChildren[node] - 1;
+		int mid;
+		while(low <= high)
+		{
+			mid = (low + high) >>> 1;
+			if(childLabels[mid] < label)
+				low = mid + 1;
+			else if(childLabels[mid] > label)
+				high = mid - 1;
+			else
+				return childNodes[mid];
+		}
+		return -1;
+	}
+	
+	private static final int append(char[] out, int outLength, String s)
+	{
+		s.getChars(0, s.length(), out, outLength);
+		return outLength + s.length();
+	}
+	
+	// ---- Private inner class ----
+	private static final class TrieNode
+	{
+		// Sorted so the flattened children end up in label order.
+		public final TreeMap<Character, Integer> children = new TreeMap<Character, Integer>();
+		public String replacement;
+	}
+}
@@ -19,11 +19,7 @@ package main;
  * or have any questions.
  */
 
-import java.io.BufferedReader;
-import java.util.ArrayList;
-import java.util.HashSet;
 import utils.UChar;
-import utils.UFile;
 
 public final class Config
 {
@@ -43,117 +39,60 @@ public final class Config
 	public static final String SUBSTITUTION_FILE = "substitutions.txt";
 	public static final String ALPHABET_FILE = "alphabet.txt";
 	
-	private static ArrayList<String[]> substitutionRules;
-	private static ArrayList<String> deletionRules;
-	private static HashSet<Character> knownCharacters;
+	// The lexicon compiled from the files above. It is rebuilt (and written again) whenever one of
+	// them changes.
+	public static final String LEXICON_SNAPSHOT_FILE = "lexicon.snapshot";
+	public static final boolean USE_LEXICON_SNAPSHOT = true;
+	
+	// Search the word table and the (minimised) word sequence trees where they are in the mapped
+	// snapshot instead of copying them onto the heap. Processes using the same config folder then
+	// share one copy of the lexicon. Only has an effect if USE_LEXICON_SNAPSHOT is set.
+	public static final boolean OFF_HEAP_LEXICON = false;
+	
+	// Watch the config folder (and COMPARED_CONFIG_FOLDERS) while analysing and switch to new
+	// lexicons when the files above change. Files that are already being analysed finish with the
+	// old ones. The new lexicons are read once no file has changed for the given time.
+	public static final boolean RELOAD_LEXICON_ON_CHANGE = false;
+	public static final long LEXICON_RELOAD_DELAY_MILLIS = 1000;
+	
+	// Other versions of the lexicon files (the alphabet and substitutions of CONFIG_FOLDER are
+	// used for all of them). Every file is only tokenised once and then analysed with each
+	// lexicon. The results of each go into a folder of their own and COMPARISON.txt sets the
+	// scores side by side.
+	public static final String[] COMPARED_CONFIG_FOLDERS = new String[0];
+	
+	// Sentences in which a smaller share of the letters are Persian letters are not analysed.
+	// Zero analyses every sentence.
+	public static final double MIN_PERSIAN_LETTER_SHARE = 0.0;
+	
+	// Source files are memory-mapped and decoded directly instead of being read line by line.
+	public static final boolean MAP_SOURCE_FILES = true;
+	
+	// Number of batches of sentences (or file summaries) that can wait between the stages of the
+	// pipeline. Zero processes one file after the other on a single thread instead.
+	public static final int PIPELINE_QUEUE_SIZE = 16;
+	
+	// The sentences of a file are analysed in chunks of this size, using this many threads.
+	// Zero threads means one per processor, one thread analyses every chunk on the calling thread.
+	public static final int SENTENCES_PER_CHUNK = 1024;
+	public static final int NR_ANALYSIS_THREADS = 0;
+	
+	// Text without sentence punctuation (e.g. tables or poetry) would otherwise become one huge
+	// sentence. Longer sentences are split at the last whitespace before this many characters
+	// (e.g. 10000). Zero means no limit.
+	public static final int MAX_SENTENCE_LENGTH = 0;
+	
+	// The analysis of a file is stopped after this long and the file is flagged as incomplete.
+	// Zero means no limit.
+	public static final long MAX_ANALYSIS_MILLIS_PER_FILE = 0;
+	
+	// Word sequence trees are minimised once they are complete. For very large lexicons they can
+	// instead be encoded succinctly, which takes much less memory but makes lookups slower.
+	public static final boolean SUCCINCT_WORD_SEQUENCE_TREES = false;
 	
 	// ================================================================
 	// ======================== Static Methods ========================
 	// ================================================================
-	public static final boolean readAlphabetFile()
-	{
-		knownCharacters = new HashSet<Character>();
-		
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.ALPHABET_FILE);
-		if(br == null)
-		{
-			System.out.println("Could not open file: " + Config.ALPHABET_FILE);
-			return false;
-		}
-		
-		ArrayList<String> alphabetLines = UFile.readLines(br);
-		if(alphabetLines == null)
-		{
-			System.out.println("Failed to read from: " + Config.ALPHABET_FILE);
-			return false;
-		}
-		
-		// Process each line in the alphabet file.
-		String line;
-		char[] charactersInLine;
-		for(int i = 0; i < alphabetLines.size(); i++)
-		{
-			// Get the line as a string.
-			line = alphabetLines.get(i);
-			
-			// There shouldn't be any whitespace but remove it just in case.
-			line = line.trim();
-			
-			// Separate into individual characters.
-			charactersInLine = line.toCharArray();
-			
-			// Add each character to the set of known characters.
-			for(char c : charactersInLine)
-				knownCharacters.add(c);
-		}
-		return true;
-	}
-	
-	public static final void checkForUnknownSymbols(String[] wordSequence)
-	{
-		for(String word : wordSequence)
-			checkForUnknownSymbols(word);
-	}
-	
-	public static final void checkForUnknownSymbols(String word)
-	{
-		char[] charsInWord = word.toCharArray();
-		
-		for(char c : charsInWord)
-		{
-			if(!knownCharacters.contains(c))
-				System.out.println("Warning: Unknown character: >" + c + "<");
-		}
-	}
-	
-	public static final boolean readSubstitutionFile()
-	{
-		substitutionRules = new ArrayList<String[]>();
-		deletionRules = new ArrayList<String>();
-		
-		BufferedReader br = UFile.reader_force(Config.CONFIG_FOLDER, Config.SUBSTITUTION_FILE);
-		if(br == null)
-		{
-			System.out.println("Could not open file: " + Config.SUBSTITUTION_FILE);
-			return false;
-		}
-		
-		ArrayList<String> substitutionRuleList = UFile.readLines(br);
-		if(substitutionRuleList == null)
-		{
-			System.out.println("Failed to read from: " + Config.SUBSTITUTION_FILE);
-			return false;
-		}
-		
-		// Process each postfix-value pair.
-		String substitutionRuleAsOneString;
-		String[] lhsAndRhsSeparated;
-		for(int i = 0; i < substitutionRuleList.size(); i++)
-		{
-			// The prefix to be processed.
-			substitutionRuleAsOneString = substitutionRuleList.get(i);
-			
-			// Split the rule into lhs (the string to be replaced) and rhs (the replacement string).
-			lhsAndRhsSeparated = substitutionRuleAsOneString.split("\t");
-			
-			// There must be exactly two parts (lhs and rhs). If not complain.
-			if(lhsAndRhsSeparated.length != 2)
-			{
-				System.out.println("Invalid substitution rule: " + substitutionRuleAsOneString);
-				return false;
-			}
-			
-			// Store the rule in the appropriate list.
-			// Note: The user writes "DELETE" in the file because they cannot but "" (empty string)
-			// due to the requirement of having exactly one lhs and one rhs value.
-			if(lhsAndRhsSeparated[1].equals("DELETE"))
-				deletionRules.add(lhsAndRhsSeparated[0]);
-			else
-				substitutionRules.add(lhsAndRhsSeparated);
-		}
-		return true;
-	}
-	
 	public static final String standardisePunctuation(String s)
 	{
 		// Convert Farsi's slightly different punctuation into standard punctuation.
@@ -167,84 +106,19 @@ public final class Config
 		return s;
 	}
 	
-	// Applied to a whole sentence at a time before it is split into individual words.
-	public static final String standardiseSourceSentence(String s)
-	{
-		// Actually just applying the same rules as to all other strings.
-		return cleanString(s);
-	}
-	
-	// Applied to the individual words in a sentence read from a source file.
-	public static final String standardiseSourceToken(String s)
-	{
-		// Currently not in use.
-		return s;
-	}
-	
-	public static final String cleanString(String s)
-	{
-		// Substitute similar characters with their standard equivalent.
-		s = performSubstitutions(s);
-		
-		// Delete unwanted characters.
-		s = performDeletions(s);
-		
-		// Remove any leading and/or trailing whitespace.
-		s = s.trim();
-		
-		// Converts the string to lower case if applicable to the language in use.
-		s = toLowerCase(s);
-		
-		// Return the cleaned string.
-		return s;
-	}
-	
-	public static final String performSubstitutions(String s)
+	// The same as above for a single character.
+	public static final char standardisePunctuation(char c)
 	{
-		// Very annoying invisible character.
-		s = s.replaceAll(UChar.ZERO_WIDTH_NON_JOINER_S, " ");
-		
-		// Replace all "half space" characters will standard spaces.
-		s = s.replaceAll(UChar.HALF_SPACE_S, " ");
-		
-		// Brackets are also a regular expression concept, so you can't just use "(" as the regex!
-		// You can either escape like this: "\\(" or use a group that is indicated using square
-		// brackets: "[(]". The thing inside the brackets is the actual regular expression you're
-		// looking for. Brackets are replaced by spaces rather than deleted because deletion may
-		// join adjacent words together without a space in between.
-		s = s.replaceAll("[(]", " ");
-		s = s.replaceAll("[)]", " ");
+		if(c == UChar.FARSI_SEMICOLON_S.charAt(0))
+			return ';';
 		
-		// User defined substitutions.
-		for(String[] rule : substitutionRules)
-			s = s.replaceAll(rule[0], rule[1]);
+		if(c == UChar.FARSI_QUESTION_MARK_S.charAt(0))
+			return '?';
 		
-		return s;
-	}
-	
-	public static final String performDeletions(String s)
-	{
-		// Deleting invisible characters here rather than using the substitution file.
-		// This is done to avoid confusion with invisible characters in the file.
-		s = s.replaceAll(UChar.RIGHT_TO_LEFT_OVERRIDE_S, "");
-		s = s.replaceAll(UChar.LEFT_TO_RIGHT_OVERRIDE_S, "");
-		s = s.replaceAll(UChar.POP_DIRECTIONAL_FORMATTING_S, "");
+		if(c == UChar.FARSI_COMMA_S.charAt(0))
+			return ',';
 		
-		// Remove all punctuation.
-		s = s.replaceAll("\\p{Punct}", "");
-		
-		// User defined deletions.
-		for(String rule : deletionRules)
-			s = s.replaceAll(rule, "");
-		
-		return s;
-	}
-	
-	private static final String toLowerCase(String s)
-	{
-		// Probably best not do this for Farsi.
-		//s = s.toLowerCase();
-		return s;
+		return c;
 	}
 	
 	// For detecting zero-length or invisible characters.
@@ -0,0 +1,174 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import analyser.ConfigReader;
+import analyser.Lexicon;
+import analyser.LexiconRegistry;
+import dataStructures.WordTable;
+
+/*
+ * Checks what the lexicons of a registry share. The lexicon files of the config folder are copied
+ * into two temporary folders, and a word sequence is added to the LC file of the second one. Its
+ * lexicon must then use the same prefix and postfix lookups and word Strings as the first one, and
+ * the nodes of its negating verb and exception word trees, but not those of its complexity tree.
+ * A third lexicon read again from the first folder (now from its snapshot) must share all of them.
+ * Run with "java main.LexiconRegistryCheck".
+ */
+public final class LexiconRegistryCheck
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final String[] LEXICON_FILES = new String[] {Config.LC_FILE, Config.HC_FILE,
+		Config.PREFIX_FILE, Config.POSTFIX_FILE, Config.NEGATING_VERBS_FILE,
+		Config.EXCEPTION_WORDS_FILE};
+	
+	// Only in the LC file of the second folder.
+	private static final String ADDED_SEQUENCE = "واژه نو";
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	public static final void main(String[] args)
+	{
+		NormalisationProfile normalisationProfile = NormalisationProfile.read(Config.CONFIG_FOLDER);
+		if(normalisationProfile == null)
+		{
+			System.out.println("Error: Could not read the alphabet or the substitution file!");
+			return;
+		}
+		
+		File firstFolder = null;
+		File secondFolder = null;
+		try
+		{
+			firstFolder = copyLexiconFiles();
+			secondFolder = copyLexiconFiles();
+			Files.write(new File(secondFolder, Config.LC_FILE).toPath(),
+				("\n" + ADDED_SEQUENCE + "\n").getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+			
+			LexiconRegistry registry = new LexiconRegistry(normalisationProfile);
+			BenchmarkSupport.check(registry.load("first", firstFolder.getPath())
+				&& registry.load("second", secondFolder.getPath())
+				&& registry.load("again", firstFolder.getPath()), "Could not load the lexicons");
+			
+			ConfigReader first = registry.get("first").configReader;
+			checkShared(first, registry.get("second"), false);
+			checkShared(first, registry.get("again"), true);
+			System.out.println("Passed.");
+		}
+		catch(IOException e)
+		{
+			System.out.println("Error: Could not copy the lexicon files: " + e.getMessage());
+		}
+		finally
+		{
+			delete(firstFolder);
+			delete(secondFolder);
+		}
+	}
+	
+	private static final File copyLexiconFiles() throws IOException
+	{
+		File folder = Files.createTempDirectory("lexicon").toFile();
+		for(String fileName : LEXICON_FILES)
+		{
+			Files.copy(new File(Config.CONFIG_FOLDER, fileName).toPath(),
+				new File(folder, fileName).toPath());
+		}
+		return folder;
+	}
+	
+	// What the lexicon must share with the first one. Its complexity tree only if it was read from
+	// the same files.
+	private static final void checkShared(ConfigReader first, Lexicon lexicon,
+		boolean sameComplexityWords)
+	{
+		ConfigReader other = lexicon.configReader;
+		String name = other.configFolder;
+		BenchmarkSupport.check(first.prefixTable == other.prefixTable
+			&& first.postfixTable == other.postfixTable, "Prefix and postfix tables not shared in "
+			+ name);
+		BenchmarkSupport.check(first.prefixTrie == other.prefixTrie
+			&& first.postfixTrie == other.postfixTrie, "Prefix and postfix tries not shared in "
+			+ name);
+		
+		int nrSharedWords = countSharedWords(first.sequenceWords, other.sequenceWords);
+		BenchmarkSupport.check(nrSharedWords > 0, "Word Strings not shared in " + name);
+		
+		BenchmarkSupport.check(other.negatingVerbSequenceTree.sharesNodes(
+			first.negatingVerbSequenceTree), "Negating verb tree not shared in " + name);
+		BenchmarkSupport.check(other.exceptionWordsTree.sharesNodes(first.exceptionWordsTree),
+			"Exception word tree not shared in " + name);
+		BenchmarkSupport.check(other.complexityWordSequenceTree.sharesNodes(
+			first.complexityWordSequenceTree) == sameComplexityWords, sameComplexityWords
+			? "Complexity tree not shared in " + name : "Different complexity trees shared in "
+			+ name);
+		
+		System.out.println(name + ": shares the prefix and postfix lookups, " + nrSharedWords
+			+ " of " + other.sequenceWords.size() + " word Strings, the negating verb and "
+			+ "exception word trees and " + (sameComplexityWords ? "" : "not ")
+			+ "the complexity tree.");
+	}
+	
+	// The number of words of the other table that are also in the first one, all of which must be
+	// the same String. Returns -1 if one isn't.
+	private static final int countSharedWords(WordTable first, WordTable other)
+	{
+		int nrSharedWords = 0;
+		String word;
+		String firstWord;
+		for(int id = 0; id < other.size(); id++)
+		{
+			word = other.getWord(id);
+			firstWord = first.find(word);
+			if(firstWord == null)
+				continue;
+			
+			if(firstWord != word)
+				return -1;
+			
+			nrSharedWords++;
+		}
+		return nrSharedWords;
+	}
+	
+	// The folder and the files in it (including the snapshot written there).
+	private static final void delete(File folder)
+	{
+		if(folder == null)
+			return;
+		
+		File[] files = folder.listFiles();
+		if(files != null)
+		{
+			for(File file : files)
+				file.delete();
+		}
+		folder.delete();
+	}
+}
@@ -0,0 +1,210 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reads a UTF-8 file by memory-mapping it and decoding the bytes directly into the array passed
+ * to read. Large files are mapped one window at a time rather than all at once. Invalid byte
+ * sequences are replaced (like InputStreamReader does).
+ */
+public final class MappedFileReader extends Reader
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// A decoder can be reused for one file after the other, but only by one reader at a time.
+	public static final CharsetDecoder newDecoder()
+	{
+		return StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+	
+	// Returns null if the file cannot be opened.
+	public static final MappedFileReader open(File file, CharsetDecoder decoder)
+	{
+		RandomAccessFile randomAccessFile = null;
+		try
+		{
+			randomAccessFile = new RandomAccessFile(file, "r");
+			return new MappedFileReader(randomAccessFile.getChannel(), decoder);
+		}
+		catch(IOException e)
+		{
+			// Don't leave the file open.
+			if(randomAccessFile != null)
+			{
+				try
+				{
+					randomAccessFile.close();
+				}
+				catch(IOException e2)
+				{
+					// Can't do anything about this, we made best efforts.
+				}
+			}
+			return null;
+		}
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	private final FileChannel channel;
+	private final long fileSize;
+	private final CharsetDecoder decoder;
+	
+	// The part of the file currently mapped and where it starts in the file.
+	private MappedByteBuffer window;
+	private long windowStart;
+	
+	// The array last passed to read, wrapped (once) so the decoder can write into it.
+	private CharBuffer charBuffer;
+	
+	// Used when read asks for a single character but the next one is a surrogate pair. The second
+	// half is returned by the next call.
+	private final CharBuffer surrogatePair;
+	
+	private boolean endOfInput;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	private MappedFileReader(FileChannel channel, CharsetDecoder decoder) throws IOException
+	{
+		this.channel = channel;
+		this.fileSize = channel.size();
+		this.decoder = decoder;
+		this.surrogatePair = CharBuffer.allocate(2);
+		surrogatePair.flip();
+		
+		decoder.reset();
+		windowStart = 0;
+		mapWindow();
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	public final int read(char[] chars, int offset, int length) throws IOException
+	{
+		if(length == 0)
+			return 0;
+		
+		// The rest of a surrogate pair.
+		if(surrogatePair.hasRemaining())
+		{
+			chars[offset] = surrogatePair.get();
+			return 1;
+		}
+		
+		if(charBuffer == null || charBuffer.array() != chars)
+			charBuffer = CharBuffer.wrap(chars);
+		charBuffer.limit(offset + length);
+		charBuffer.position(offset);
+		
+		boolean lastWindow;
+		CoderResult result;
+		while(charBuffer.hasRemaining() && !endOfInput)
+		{
+			lastWindow = windowStart + window.limit() == fileSize;
+			
+			// Decode as much as fits.
+			result = decoder.decode(window, charBuffer, lastWindow);
+			if(result.isError())
+				result.throwException();
+			
+			// The array is full.
+			if(result.isOverflow())
+				break;
+			
+			// The window has been used up. A character may be split between this window and the
+			// next, in which case its first bytes are still in the window and get mapped again.
+			if(!lastWindow)
+			{
+				windowStart += window.position();
+				mapWindow();
+				continue;
+			}
+			
+			// Everything has been decoded.
+			if(decoder.flush(charBuffer).isOverflow())
+				break;
+			endOfInput = true;
+		}
+		
+		int nrCharsRead = charBuffer.position() - offset;
+		if(nrCharsRead == 0 && endOfInput)
+			return -1;
+		
+		// There was only room for one character and the next one needs two.
+		if(nrCharsRead == 0)
+			return readSurrogatePair(chars, offset);
+		
+		return nrCharsRead;
+	}
+	
+	public final void close() throws IOException
+	{
+		// The mapping itself is released once the buffer is garbage collected.
+		window = null;
+		charBuffer = null;
+		channel.close();
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	private final int readSurrogatePair(char[] chars, int offset) throws IOException
+	{
+		surrogatePair.clear();
+		CoderResult result = decoder.decode(window, surrogatePair,
+			windowStart + window.limit() == fileSize);
+		if(result.isError())
+			result.throwException();
+		surrogatePair.flip();
+		
+		chars[offset] = surrogatePair.get();
+		return 1;
+	}
+	
+	private final void mapWindow() throws IOException
+	{
+		long size = Math.min(WINDOW_SIZE, fileSize - windowStart);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+	}
+}
@@ -0,0 +1,414 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import utils.UChar;
+import utils.UFile;
+import dataStructures.SymbolCounts;
+import dataStructures.TokenisedSentence;
+
+/*
+ * The alphabet and the substitution rules used to clean up text, read from one config folder.
+ * A profile never changes after it has been read, so it can be shared between threads and several
+ * profiles (e.g. for different corpora) can be used side by side.
+ */
+public final class NormalisationProfile
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	// Reads the alphabet and substitution files from the given folder. Returns null on failure.
+	public static final NormalisationProfile read(String configFolder)
+	{
+		// Read in the alphabet (list of all valid characters).
+		long[] knownCharacters = readAlphabetFile(configFolder);
+		if(knownCharacters == null)
+			return null;
+		
+		// Read in the substitution and deletion rules.
+		ArrayList<String[]> substitutionRules = new ArrayList<String[]>();
+		ArrayList<String> deletionRules = new ArrayList<String>();
+		if(!readSubstitutionFile(configFolder, substitutionRules, deletionRules))
+			return null;
+		
+		return new NormalisationProfile(configFolder, knownCharacters, substitutionRules,
+			deletionRules);
+	}
+	
+	private static final long[] readAlphabetFile(String configFolder)
+	{
+		// One bit for every UTF-16 code unit.
+		long[] knownCharacters = new long[(Character.MAX_VALUE + 1) / 64];
+		
+		BufferedReader br = UFile.reader_force(configFolder, Config.ALPHABET_FILE);
+		if(br == null)
+		{
+			System.out.println("Could not open file: " + Config.ALPHABET_FILE);
+			return null;
+		}
+		
+		ArrayList<String> alphabetLines = UFile.readLines(br);
+		if(alphabetLines == null)
+		{
+			System.out.println("Failed to read from: " + Config.ALPHABET_FILE);
+			return null;
+		}
+		
+		// Process each line in the alphabet file.
+		String line;
+		char[] charactersInLine;
+		for(int i = 0; i < alphabetLines.size(); i++)
+		{
+			// Get the line as a string.
+			line = alphabetLines.get(i);
+			
+			// There shouldn't be any whitespace but remove it just in case.
+			line = line.trim();
+			
+			// Separate into individual characters.
+			charactersInLine = line.toCharArray();
+			
+			// Add each character to the set of known characters.
+			for(char c : charactersInLine)
+				knownCharacters[c >>> 6] |= 1L << c;
+		}
+		return knownCharacters;
+	}
+	
+	private static final boolean readSubstitutionFile(String configFolder,
+		ArrayList<String[]> substitutionRules, ArrayList<String> deletionRules)
+	{
+		BufferedReader br = UFile.reader_force(configFolder, Config.SUBSTITUTION_FILE);
+		if(br == null)
+		{
+			System.out.println("Could not open file: " + Config.SUBSTITUTION_FILE);
+			return false;
+		}
+		
+		ArrayList<String> substitutionRuleList = UFile.readLines(br);
+		if(substitutionRuleList == null)
+		{
+			System.out.println("Failed to read from: " + Config.SUBSTITUTION_FILE);
+			return false;
+		}
+		
+		// Process each postfix-value pair.
+		String substitutionRuleAsOneString;
+		String[] lhsAndRhsSeparated;
+		for(int i = 0; i < substitutionRuleList.size(); i++)
+		{
+			// The prefix to be processed.
+			substitutionRuleAsOneString = substitutionRuleList.get(i);
+			
+			// Split the rule into lhs (the string to be replaced) and rhs (the replacement string).
+			lhsAndRhsSeparated = substitutionRuleAsOneString.split("\t");
+			
+			// There must be exactly two parts (lhs and rhs). If not complain.
+			if(lhsAndRhsSeparated.length != 2)
+			{
+				System.out.println("Invalid substitution rule: " + substitutionRuleAsOneString);
+				return false;
+			}
+			
+			// Store the rule in the appropriate list.
+			// Note: The user writes "DELETE" in the file because they cannot but "" (empty string)
+			// due to the requirement of having exactly one lhs and one rhs value.
+			if(lhsAndRhsSeparated[1].equals("DELETE"))
+				deletionRules.add(lhsAndRhsSeparated[0]);
+			else
+				substitutionRules.add(lhsAndRhsSeparated);
+		}
+		return true;
+	}
+	
+	// ================================================================
+	// ============================ Fields ============================
+	// ================================================================
+	// Where the alphabet and substitution files were read from.
+	public final String configFolder;
+	
+	private final String[][] substitutionRules;
+	private final String[] deletionRules;
+	private final long[] knownCharacters;
+	
+	// The letters of the alphabet that are written in the Arabic script, and the letters that are
+	// substituted with them (e.g. the Arabic forms of ye and kaf).
+	private final long[] persianLetters;
+	
+	// Null if the rules have to be applied as regular expressions.
+	private final CharNormaliser normaliser;
+	
+	// ================================================================
+	// ======================== Constructor(s) ========================
+	// ================================================================
+	private NormalisationProfile(String configFolder, long[] knownCharacters,
+		ArrayList<String[]> substitutionRules, ArrayList<String> deletionRules)
+	{
+		this.configFolder = configFolder;
+		this.knownCharacters = knownCharacters;
+		this.substitutionRules = substitutionRules.toArray(new String[substitutionRules.size()][]);
+		this.persianLetters = selectPersianLetters(knownCharacters, this.substitutionRules);
+		this.deletionRules = deletionRules.toArray(new String[deletionRules.size()]);
+		
+		// Compile all rules into a single character table. This is not possible if a rule is a
+		// genuine regular expression, in which case the rules are applied one after the other.
+		normaliser = CharNormaliser.compile(substitutionRules, deletionRules);
+		if(normaliser == null)
+			System.out.println("Note: Substitution rules are applied as regular expressions.");
+	}
+	
+	// ================================================================
+	// ======================== Public Methods ========================
+	// ================================================================
+	public final boolean isKnownCharacter(int codePoint)
+	{
+		// Characters outside the Basic Multilingual Plane cannot be in the alphabet.
+		if(codePoint > Character.MAX_VALUE)
+			return false;
+		
+		return (knownCharacters[codePoint >>> 6] & (1L << codePoint)) != 0;
+	}
+	
+	public final void countUnknownSymbols(String[] wordSequence, SymbolCounts unknownSymbols)
+	{
+		for(String word : wordSequence)
+			countUnknownSymbols(word, unknownSymbols);
+	}
+	
+	public final void countUnknownSymbols(TokenisedSentence tokenisedSentence,
+		SymbolCounts unknownSymbols)
+	{
+		for(int i = 0; i < tokenisedSentence.getNrTokens(); i++)
+			countUnknownSymbols(tokenisedSentence.getToken(i), unknownSymbols);
+	}
+	
+	public final void countUnknownSymbols(CharSequence word, SymbolCounts unknownSymbols)
+	{
+		int n = word.length();
+		int codePoint;
+		
+		for(int i = 0; i < n; i += Character.charCount(codePoint))
+		{
+			codePoint = Character.codePointAt(word, i);
+			
+			if(!isKnownCharacter(codePoint))
+				unknownSymbols.add(codePoint);
+		}
+	}
+	
+	// The number of Persian letters in s divided by the number of letters of any script. Letters
+	// that cleaning turns into Persian letters already count as Persian, so text typed on an
+	// Arabic keyboard gets the same share as after cleaning.
+	public final double persianLetterShare(String s)
+	{
+		int n = s.length();
+		int nrLetters = 0;
+		int nrPersianLetters = 0;
+		char c;
+		
+		for(int i = 0; i < n; i++)
+		{
+			c = s.charAt(i);
+			
+			if((persianLetters[c >>> 6] & (1L << c)) != 0)
+			{
+				nrPersianLetters++;
+				nrLetters++;
+			}
+			else if(Character.isLetter(c))
+			{
+				nrLetters++;
+			}
+		}
+		
+		// Something without any letters at all (e.g. only numbers) is not Persian either.
+		if(nrLetters == 0)
+			return 0.0;
+		
+		return (double)nrPersianLetters / nrLetters;
+	}
+	
+	// Applied to a whole sentence at a time before it is split into individual words.
+	public final String standardiseSourceSentence(String s)
+	{
+		// Actually just applying the same rules as to all other strings.
+		return cleanString(s);
+	}
+	
+	// Cleans a sentence read from a source file and splits it into tokens, the same way as
+	// standardiseSourceSentence followed by splitting at whitespace and standardiseSourceToken.
+	// The result is written into the given (reused) instance instead of creating new strings.
+	public final void tokenise(String sentence, TokenisedSentence tokenisedSentence)
+	{
+		int length;
+		char[] buffer;
+		
+		// Normalise straight into the buffer of the tokenised sentence.
+		if(normaliser != null)
+		{
+			buffer = tokenisedSentence.getCharBuffer(normaliser.maxNormalisedLength(sentence.length()));
+			length = normaliser.normalise(sentence, buffer);
+		}
+		else
+		{
+			sentence = standardiseSourceSentence(sentence);
+			length = sentence.length();
+			buffer = tokenisedSentence.getCharBuffer(length);
+			sentence.getChars(0, length, buffer, 0);
+		}
+		
+		// Note: standardiseSourceToken (and toLowerCase) do not change anything at the moment, so
+		// the tokens are used as they are.
+		tokenisedSentence.tokenise(length);
+	}
+	
+	// Null if the rules have to be applied as regular expressions. For the benchmarks.
+	final CharNormaliser getNormaliser()
+	{
+		return normaliser;
+	}
+	
+	// Applied to the individual words in a sentence read from a source file.
+	public final String standardiseSourceToken(String s)
+	{
+		// Currently not in use.
+		return s;
+	}
+	
+	public final String cleanString(String s)
+	{
+		// Substitutions, deletions and trimming all done in a single pass.
+		if(normaliser != null)
+			return toLowerCase(normaliser.normalise(s));
+		
+		// Substitute similar characters with their standard equivalent.
+		s = performSubstitutions(s);
+		
+		// Delete unwanted characters.
+		s = performDeletions(s);
+		
+		// Remove any leading and/or trailing whitespace.
+		s = s.trim();
+		
+		// Converts the string to lower case if applicable to the language in use.
+		s = toLowerCase(s);
+		
+		// Return the cleaned string.
+		return s;
+	}
+	
+	public final String performSubstitutions(String s)
+	{
+		// Very annoying invisible character.
+		s = s.replaceAll(UChar.ZERO_WIDTH_NON_JOINER_S, " ");
+		
+		// Replace all "half space" characters will standard spaces.
+		s = s.replaceAll(UChar.HALF_SPACE_S, " ");
+		
+		// Brackets are also a regular expression concept, so you can't just use "(" as the regex!
+		// You can either escape like this: "\\(" or use a group that is indicated using square
+		// brackets: "[(]". The thing inside the brackets is the actual regular expression you're
+		// looking for. Brackets are replaced by spaces rather than deleted because deletion may
+		// join adjacent words together without a space in between.
+		s = s.replaceAll("[(]", " ");
+		s = s.replaceAll("[)]", " ");
+		
+		// User defined substitutions.
+		for(String[] rule : substitutionRules)
+			s = s.replaceAll(rule[0], rule[1]);
+		
+		return s;
+	}
+	
+	public final String performDeletions(String s)
+	{
+		// Deleting invisible characters here rather than using the substitution file.
+		// This is done to avoid confusion with invisible characters in the file.
+		s = s.replaceAll(UChar.RIGHT_TO_LEFT_OVERRIDE_S, "");
+		s = s.replaceAll(UChar.LEFT_TO_RIGHT_OVERRIDE_S, "");
+		s = s.replaceAll(UChar.POP_DIRECTIONAL_FORMATTING_S, "");
+		
+		// Remove all punctuation.
+		s = s.replaceAll("\\p{Punct}", "");
+		
+		// User defined deletions.
+		for(String rule : deletionRules)
+			s = s.replaceAll(rule, "");
+		
+		return s;
+	}
+	
+	// ================================================================
+	// ======================= Private Methods ========================
+	// ================================================================
+	private static final long[] selectPersianLetters(long[] knownCharacters,
+		String[][] substitutionRules)
+	{
+		long[] persianLetters = new long[knownCharacters.length];
+		
+		for(int c = 0; c <= Character.MAX_VALUE; c++)
+		{
+			if((knownCharacters[c >>> 6] & (1L << c)) != 0 && Character.isLetter(c)
+				&& Character.UnicodeScript.of(c) == Character.UnicodeScript.ARABIC)
+			{
+				persianLetters[c >>> 6] |= 1L << c;
+			}
+		}
+		
+		// A letter that is replaced with Persian letters only. The rules are applied in order, so
+		// the replacement is checked against the letters found so far.
+		char c;
+		for(String[] substitutionRule : substitutionRules)
+		{
+			if(substitutionRule[0].length() != 1 || substitutionRule[1].isEmpty())
+				continue;
+			
+			c = substitutionRule[0].charAt(0);
+			if(Character.isLetter(c) && isPersianLetters(persianLetters, substitutionRule[1]))
+				persianLetters[c >>> 6] |= 1L << c;
+		}
+		return persianLetters;
+	}
+	
+	private static final boolean isPersianLetters(long[] persianLetters, String s)
+	{
+		char c;
+		for(int i = 0; i < s.length(); i++)
+		{
+			c = s.charAt(i);
+			if((persianLetters[c >>> 6] & (1L << c)) == 0)
+				return false;
+		}
+		return true;
+	}
+	
+	private final String toLowerCase(String s)
+	{
+		// Probably best not do this for Farsi.
+		//s = s.toLowerCase();
+		return s;
+	}
+}
@@ -0,0 +1,126 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.util.ArrayList;
+
+/*
+ * Measures how fast the normaliser cleans real Farsi text, copying runs of unchanged characters in
+ * bulk against handling one character at a time. Noisy text is the text as read, with all its
+ * substitutions and deletions; clean text has already been cleaned once. Both ways must give the
+ * same result. Run with "java main.NormaliserBenchmark [folder of .txt files]".
+ */
+public final class NormaliserBenchmark
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int NR_RUNS = 30;
+	
+	// Small samples are gone through several times per run, so the timer has something to measure.
+	private static final long MIN_CHARS_PER_RUN = 4000000;
+	
+	// Keeps the JIT compiler from dropping the work.
+	private static long checksum;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	public static final void main(String[] args)
+	{
+		NormalisationProfile normalisationProfile = NormalisationProfile.read(Config.CONFIG_FOLDER);
+		if(normalisationProfile == null || normalisationProfile.getNormaliser() == null)
+		{
+			System.out.println("Error: The substitution rules cannot be compiled into a table!");
+			return;
+		}
+		ArrayList<String> noisySentences = BenchmarkSupport.readSentences(args);
+		if(noisySentences == null)
+			return;
+		
+		ArrayList<String> cleanSentences = new ArrayList<String>(noisySentences.size());
+		for(String sentence : noisySentences)
+			cleanSentences.add(normalisationProfile.cleanString(sentence));
+		
+		CharNormaliser normaliser = normalisationProfile.getNormaliser();
+		run("Noisy text", normaliser, noisySentences);
+		run("Clean text", normaliser, cleanSentences);
+		System.out.println("(checksum " + checksum + ")");
+	}
+	
+	private static final void run(String name, final CharNormaliser normaliser,
+		final ArrayList<String> sentences)
+	{
+		int maxLength = 0;
+		long nrChars = 0;
+		for(String sentence : sentences)
+		{
+			maxLength = Math.max(maxLength, sentence.length());
+			nrChars += sentence.length();
+		}
+		final long nrPasses = (MIN_CHARS_PER_RUN + nrChars - 1) / nrChars;
+		final char[] out = new char[normaliser.maxNormalisedLength(maxLength)];
+		final char[] expected = new char[out.length];
+		
+		// Both ways must produce the same text.
+		int length;
+		for(String sentence : sentences)
+		{
+			length = normaliser.normaliseCharByChar(sentence, expected);
+			BenchmarkSupport.check(normaliser.normalise(sentence, out) == length
+				&& new String(out, 0, length).equals(new String(expected, 0, length)),
+				"Different results for: " + sentence);
+		}
+		
+		long charByCharNanos = BenchmarkSupport.bestOf(NR_RUNS, new Runnable()
+		{
+			public void run()
+			{
+				for(long pass = 0; pass < nrPasses; pass++)
+				{
+					for(String sentence : sentences)
+						checksum += normaliser.normaliseCharByChar(sentence, out);
+				}
+			}
+		});
+		long bulkNanos = BenchmarkSupport.bestOf(NR_RUNS, new Runnable()
+		{
+			public void run()
+			{
+				for(long pass = 0; pass < nrPasses; pass++)
+				{
+					for(String sentence : sentences)
+						checksum += normaliser.normalise(sentence, out);
+				}
+			}
+		});
+		
+		// Two bytes per (UTF-16) character.
+		nrChars *= nrPasses;
+		System.out.println(name + " (" + sentences.size() + " sentences): one character at a time "
+			+ megabytesPerSecond(nrChars, charByCharNanos) + " MB/s, unchanged runs in bulk "
+			+ megabytesPerSecond(nrChars, bulkNanos) + " MB/s.");
+	}
+	
+	private static final long megabytesPerSecond(long nrChars, long nanos)
+	{
+		return 2 * nrChars * 1000 / nanos;
+	}
+}
@@ -19,51 +19,59 @@ package main;
  * or have any questions.
  */
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.CharsetDecoder;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import analyser.FileAnalyser;
 import analyser.ConfigReader;
+import analyser.Lexicon;
+import analyser.LexiconWatcher;
 import dataStructures.FileSummary;
 import dataStructures.FolderSummary;
+import dataStructures.LexiconComparison;
 import utils.UFile;
 import utils.UOperatingSystem;
 
 public final class PersianAnalyser
 {
-	private static int nrWarnings = 0;
+	// Updated by all stages of the pipeline.
+	private static final AtomicInteger nrWarnings = new AtomicInteger();
 	
 	public static final void main(String[] args)
 	{
-		// Read in the alphabet (list of all valid characters).
-		if(!Config.readAlphabetFile())
+		// Read in the alphabet (list of all valid characters) and the substitution rules.
+		NormalisationProfile normalisationProfile = NormalisationProfile.read(Config.CONFIG_FOLDER);
+		if(normalisationProfile == null)
 		{
-			System.out.println("Error: Could not read the alphabet file!");
+			System.out.println("Error: Could not read the alphabet or the substitution file!");
 			waitForUserToPressEnter();
 			return;
 		}
 		
-		// Setup the Config class.
-		if(!Config.readSubstitutionFile())
+		// Create a file analyser.
+		ConfigReader configReader = createConfigReader(normalisationProfile);
+		if(configReader == null)
 		{
-			System.out.println("Error: Could not read the substitution file!");
+			System.out.println("Error: Could not create a ConfigReader!");
 			waitForUserToPressEnter();
 			return;
 		}
+		System.out.println("ConfigReader is ready.\n");
 		
-		// Create a file analyser.
-		ConfigReader configReader = createConfigReader();
-		if(configReader == null)
+		// Read the lexicons to compare with (if any), which are cleaned with the same rules.
+		Lexicon[] lexicons = createLexicons(normalisationProfile, configReader);
+		if(lexicons == null)
 		{
-			System.out.println("Error: Could not create a ConfigReader!");
+			System.out.println("Error: Could not read the lexicons to compare with!");
 			waitForUserToPressEnter();
 			return;
 		}
-		System.out.println("ConfigReader is ready.\n");
 		
 		// Get the folder containing the files to be analysed.
 		File sourceFolder = getSourceFolder();
@@ -75,24 +83,34 @@ public final class PersianAnalyser
 		}
 		
 		// Process the selected folder.
-		processFolder(configReader, sourceFolder);
+		processFolder(lexicons, sourceFolder);
 		
 		// If there are warnings, give the user time to read them.
-		if(nrWarnings != 0)
+		if(nrWarnings.get() != 0)
 			waitForUserToPressEnter();
 	}
 	
-	private static final ConfigReader createConfigReader()
+	private static final ConfigReader createConfigReader(NormalisationProfile normalisationProfile)
 	{
-		// Create a configReader.
-		ConfigReader configReader = new ConfigReader();
-		
-		// Return the configReader if it is successfully set up.
-		if(configReader.setup())
-			return configReader;
-		
-		// If setup failed return null.
-		return null;
+		// Create a configReader. Returns null if setup failed.
+		return ConfigReader.create(normalisationProfile, Config.CONFIG_FOLDER);
+	}
+	
+	// The lexicon of the config folder followed by those of Config.COMPARED_CONFIG_FOLDERS.
+	private static final Lexicon[] createLexicons(NormalisationProfile normalisationProfile,
+		ConfigReader configReader)
+	{
+		Lexicon[] lexicons = new Lexicon[1 + Config.COMPARED_CONFIG_FOLDERS.length];
+		lexicons[0] = new Lexicon(normalisationProfile, configReader);
+		for(int i = 1; i < lexicons.length; i++)
+		{
+			System.out.println("Reading the lexicon in " + Config.COMPARED_CONFIG_FOLDERS[i - 1]
+				+ "...");
+			lexicons[i] = Lexicon.read(Config.COMPARED_CONFIG_FOLDERS[i - 1], normalisationProfile);
+			if(lexicons[i] == null)
+				return null;
+		}
+		return lexicons;
 	}
 	
 	private static final File getSourceFolder()
@@ -119,79 +137,230 @@ public final class PersianAnalyser
 		}
 		catch(Exception ex)
 		{
-			
+		
 		}
 		return sourceFolder;
 	}
 	
-	private static final void processFolder(ConfigReader configReader, File sourceFolder)
+	private static final void processFolder(Lexicon[] lexicons, File sourceFolder)
 	{
 		System.out.println("Selected source folder: " + sourceFolder.getAbsolutePath() + "\n");
 		
 		File[] sourceFiles = sourceFolder.listFiles();
 		String outputFolder = sourceFolder + File.separator + "FarsiAnalyser";
 		
-		// Create a file analyser.
-		FileAnalyser analyser = new FileAnalyser(configReader);
-		FolderSummary folderSummary = new FolderSummary(configReader);
+		// Create a file analyser. Every file is only read and split into tokens once, however
+		// many lexicons it is analysed with.
+		FileAnalyser analyser = new FileAnalyser(lexicons);
+		
+		// With more than one lexicon, the results of each go into a folder of their own and are
+		// also compared side by side.
+		String[] outputFolders = new String[] {outputFolder};
+		LexiconComparison lexiconComparison = null;
+		if(lexicons.length > 1)
+		{
+			String[] lexiconNames = getLexiconNames(lexicons);
+			outputFolders = new String[lexicons.length];
+			for(int i = 0; i < lexicons.length; i++)
+				outputFolders[i] = outputFolder + File.separator + lexiconNames[i];
+			lexiconComparison = new LexiconComparison(lexiconNames);
+		}
+		FolderSummary[] folderSummaries = new FolderSummary[lexicons.length];
+		for(int i = 0; i < lexicons.length; i++)
+			folderSummaries[i] = new FolderSummary(lexicons[i].configReader);
+		
+		// Pick up changes to the config files while the folder is being analysed.
+		LexiconWatcher lexiconWatcher = null;
+		if(Config.RELOAD_LEXICON_ON_CHANGE)
+			lexiconWatcher = LexiconWatcher.start(analyser);
+		
+		// Either read, analyse and write in separate stages that run at the same time or process
+		// one file after the other. The results are the same.
+		if(Config.PIPELINE_QUEUE_SIZE > 0)
+		{
+			new AnalysisPipeline(analyser, folderSummaries, outputFolders, lexiconComparison)
+				.run(sourceFiles);
+		}
+		else
+		{
+			processFiles(analyser, folderSummaries, sourceFiles, outputFolders, lexiconComparison);
+		}
+		
+		if(lexiconWatcher != null)
+			lexiconWatcher.stop();
+		
+		// Output the folder summaries.
+		for(int i = 0; i < folderSummaries.length; i++)
+			writeFolderSummary(folderSummaries[i], outputFolders[i]);
+		
+		if(lexiconComparison != null)
+			writeLexiconComparison(lexiconComparison, folderSummaries, outputFolder);
+	}
+	
+	// The names of the config folders of the lexicons, made unique if necessary.
+	private static final String[] getLexiconNames(Lexicon[] lexicons)
+	{
+		String[] lexiconNames = new String[lexicons.length];
+		for(int i = 0; i < lexicons.length; i++)
+		{
+			lexiconNames[i] = new File(lexicons[i].configReader.configFolder).getName();
+			for(int j = 0; j < i; j++)
+			{
+				if(lexiconNames[j].equals(lexiconNames[i]))
+				{
+					lexiconNames[i] += "_" + (i + 1);
+					break;
+				}
+			}
+		}
+		return lexiconNames;
+	}
+	
+	private static final void processFiles(FileAnalyser analyser, FolderSummary[] folderSummaries,
+		File[] sourceFiles, String[] outputFolders, LexiconComparison lexiconComparison)
+	{
+		// Used for every (memory-mapped) source file in turn.
+		CharsetDecoder decoder = MappedFileReader.newDecoder();
 		
 		// Go through all files in the source folder.
 		for(File sourceFile : sourceFiles)
 		{
 			// Skip directories and files that don't have a .txt extension.
-			if(sourceFile.isDirectory() || !sourceFile.getName().endsWith(".txt"))
+			if(!isSourceFile(sourceFile))
 				continue;
 			
 			System.out.println("Analysing: " + sourceFile.getAbsolutePath());
 			
 			// Open the file to be analysed. Skip this file if it cannot be read.
-			BufferedReader fileReader = UFile.reader_file(sourceFile);
+			Reader fileReader = openSourceFile(sourceFile, decoder);
 			if(fileReader == null)
-			{
-				nrWarnings++;
-				System.out.println("Skipping this file as it could not be opened!\n");
 				continue;
-			}
 			
-			// Create an output file for the summary. Skip this file in case of failure.
-			BufferedWriter fileWriter = UFile.writer_cwdOrAbs(outputFolder, sourceFile.getName());
-			if(fileWriter == null)
+			// Create the output files for the summaries. Skip this file in case of failure.
+			BufferedWriter[] fileWriters = openOutputFiles(outputFolders, sourceFile);
+			if(fileWriters == null)
 			{
-				nrWarnings++;
-				System.out.println("Skipping this file as the output file " + outputFolder
-					+ File.separator + sourceFile.getName() + " couldn't be created!\n");
+				closeFileReader(fileReader);
 				continue;
 			}
+			
 			// Process the current source file.
-			FileSummary fileSummary = processFile(analyser, fileReader, fileWriter);
+			FileSummary[] fileSummaries = analyser.analyseFileWithEachLexicon(fileReader);
+			
+			// Close the file as soon as we're done.
+			closeFileReader(fileReader);
 			
-			// If successful add a summary of the current source file to the folder summary.
-			if(fileSummary != null)
-				folderSummary.addFileSummary(sourceFile.getName(), fileSummary);
+			writeFileSummaries(sourceFile, fileSummaries, fileWriters, folderSummaries,
+				lexiconComparison);
 		}
-		// Output the folder summary.
-		writeFolderSummary(folderSummary, outputFolder);
 	}
 	
-	private static final FileSummary processFile(FileAnalyser analyser, BufferedReader fileReader,
-		BufferedWriter fileSummaryWriter)
+	static final boolean isSourceFile(File sourceFile)
+	{
+		return !sourceFile.isDirectory() && sourceFile.getName().endsWith(".txt");
+	}
+	
+	// Returns null (and warns the user) if the file cannot be opened.
+	static final Reader openSourceFile(File sourceFile, CharsetDecoder decoder)
 	{
-		// Run the analysis.
-		FileSummary fileSummary = analyser.analyseFile(fileReader);
+		Reader fileReader;
+		if(Config.MAP_SOURCE_FILES)
+			fileReader = MappedFileReader.open(sourceFile, decoder);
+		else
+			fileReader = UFile.reader_file(sourceFile);
+		
+		if(fileReader == null)
+		{
+			nrWarnings.incrementAndGet();
+			System.out.println("Skipping this file as it could not be opened!\n");
+		}
+		return fileReader;
+	}
+	
+	// One output file in each output folder. Returns null (and warns the user) if any of them
+	// cannot be created.
+	static final BufferedWriter[] openOutputFiles(String[] outputFolders, File sourceFile)
+	{
+		BufferedWriter[] fileWriters = new BufferedWriter[outputFolders.length];
+		for(int i = 0; i < outputFolders.length; i++)
+		{
+			fileWriters[i] = UFile.writer_cwdOrAbs(outputFolders[i], sourceFile.getName());
+			if(fileWriters[i] == null)
+			{
+				nrWarnings.incrementAndGet();
+				System.out.println("Skipping this file as the output file " + outputFolders[i]
+					+ File.separator + sourceFile.getName() + " couldn't be created!\n");
+				
+				// Don't leave the others open.
+				for(int j = 0; j < i; j++)
+					closeFileWriter(fileWriters[j]);
+				return null;
+			}
+		}
+		return fileWriters;
+	}
+	
+	// Writes the summary of each lexicon and adds it to the matching folder summary. The summaries
+	// are null if the file could not be analysed. The pipeline may already be reading other files
+	// by now, so every message names the file it is about.
+	static final void writeFileSummaries(File sourceFile, FileSummary[] fileSummaries,
+		BufferedWriter[] fileWriters, FolderSummary[] folderSummaries,
+		LexiconComparison lexiconComparison)
+	{
+		// The file could not be analysed, which only needs to be reported once.
+		if(fileSummaries == null)
+		{
+			writeFileSummary(sourceFile, null, fileWriters[0]);
+			for(int i = 0; i < fileWriters.length; i++)
+				closeFileWriter(fileWriters[i]);
+			return;
+		}
+		
+		// Every lexicon analysed the same tokens (within the same time), so these warnings are the
+		// same for all summaries and only reported once per file.
+		FileSummary fileSummary = fileSummaries[0];
+		
+		// The file summaries only cover part of the file.
+		if(fileSummary.timedOut)
+		{
+			nrWarnings.incrementAndGet();
+			System.out.println("Warning: The time limit was reached, only part of "
+				+ sourceFile.getName() + " was analysed.");
+		}
+		
+		// Report unknown characters once per file (the details are in the file summaries).
+		if(!fileSummary.unknownSymbols.isEmpty())
+		{
+			System.out.println("Warning: " + fileSummary.unknownSymbols.getTotal()
+				+ " unknown characters (" + fileSummary.unknownSymbols.getNrDistinct()
+				+ " distinct) in " + sourceFile.getName() + ".");
+		}
 		
-		// Close the file as soon as we're done.
-		closeFileReader(fileReader);
+		for(int i = 0; i < fileSummaries.length; i++)
+		{
+			writeFileSummary(sourceFile, fileSummaries[i], fileWriters[i]);
+			folderSummaries[i].addFileSummary(sourceFile.getName(), fileSummaries[i]);
+		}
 		
+		if(lexiconComparison != null)
+			lexiconComparison.addFileSummaries(sourceFile.getName(), fileSummaries);
+	}
+	
+	// Returns null if the file could not be analysed.
+	static final FileSummary writeFileSummary(File sourceFile, FileSummary fileSummary,
+		BufferedWriter fileSummaryWriter)
+	{
 		// Check for an error reading the file.
 		if(fileSummary == null)
 		{
-			nrWarnings++;
-			System.out.println("Skipping this file as an error occured while analysing it!\n");
+			nrWarnings.incrementAndGet();
+			System.out.println("Skipping " + sourceFile.getName()
+				+ " as an error occured while analysing it!\n");
 			return null;
 		}
 		
 		// Results successfully obtained! Write them to the output file.
-		System.out.println("Writing file summary.");
+		System.out.println("Writing file summary of " + sourceFile.getName() + ".");
 		fileSummary.generateStatistics();
 		writeToFile(fileSummaryWriter, fileSummary.toString());
 		
@@ -218,12 +387,31 @@ public final class PersianAnalyser
 		else
 		{
 			// Warn the user that the summary file cold not be created.
-			nrWarnings++;
+			nrWarnings.incrementAndGet();
 			System.out.println("Warning: Folder summary file could not be created!");
 		}
 	}
 	
-	private static final void closeFileReader(BufferedReader fileReader)
+	// Must be called after the folder summaries have been written.
+	private static final void writeLexiconComparison(LexiconComparison lexiconComparison,
+		FolderSummary[] folderSummaries, String outputFolder)
+	{
+		System.out.println("Writing lexicon comparison.");
+		
+		BufferedWriter comparisonWriter = UFile.writer_cwdOrAbs(outputFolder, "COMPARISON.txt");
+		if(comparisonWriter != null)
+		{
+			lexiconComparison.generateStatistics(folderSummaries);
+			writeToFile(comparisonWriter, lexiconComparison.toString());
+		}
+		else
+		{
+			nrWarnings.incrementAndGet();
+			System.out.println("Warning: Lexicon comparison file could not be created!");
+		}
+	}
+	
+	static final void closeFileReader(Reader fileReader)
 	{
 		try
 		{
@@ -235,6 +423,18 @@ public final class PersianAnalyser
 		}
 	}
 	
+	private static final void closeFileWriter(BufferedWriter fileWriter)
+	{
+		try
+		{
+			fileWriter.close();
+		}
+		catch(IOException e)
+		{
+			// Can't do anything about this, we made best efforts.
+		}
+	}
+	
 	private static final void writeToFile(BufferedWriter fileWriter, String content)
 	{
 		try
@@ -244,7 +444,7 @@ public final class PersianAnalyser
 		}
 		catch(IOException e)
 		{
-			nrWarnings++;
+			nrWarnings.incrementAndGet();
 			System.out.println("Warning: There was an error writing to the file!");
 		}
 		finally
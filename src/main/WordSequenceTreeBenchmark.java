@@ -0,0 +1,196 @@
+package main;
+/*
+ * PersianAnalyer is a tool for evaluating the conceptual complexity of text in Farsi.
+ * Copyright (C) 2019 David Symons. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License version 2 only, as published by the Free Software Foundation.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program;
+ * if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ * 
+ * Please contact David Symons at das57@st-andrews.ac.uk if you need additional information
+ * or have any questions.
+ */
+
+import java.util.Random;
+import dataStructures.StringTree;
+import dataStructures.TokenisedSentence;
+import dataStructures.WordTable;
+
+/*
+ * Measures the memory taken by a word sequence tree and how fast the longest match at each token
+ * is found, for the tree as it is built (int arrays), minimised and encoded succinctly (LOUDS).
+ * The lexicon is synthetic, as large as that of a big domain: sequences of one to four words from
+ * a vocabulary in which a few words are much more common than the rest. All three forms must find
+ * the same matches. Run with "java main.WordSequenceTreeBenchmark [nrSequences [nrWords]]".
+ */
+public final class WordSequenceTreeBenchmark
+{
+	// ================================================================
+	// ======================== Static Fields =========================
+	// ================================================================
+	private static final int DEFAULT_NR_SEQUENCES = 2000000;
+	private static final int DEFAULT_NR_WORDS = 200000;
+	private static final int MAX_SEQUENCE_LENGTH = 4;
+	
+	// The same lexicon is generated for every tree.
+	private static final long LEXICON_SEED = 1;
+	private static final long QUERY_SEED = 2;
+	
+	private static final int NR_QUERY_SENTENCES = 2000;
+	private static final int WORDS_PER_QUERY_SENTENCE = 20;
+	private static final int NR_RUNS = 20;
+	
+	// Keeps the JIT compiler from dropping the work.
+	private static long checksum;
+	
+	// ================================================================
+	// ======================== Static Methods ========================
+	// ================================================================
+	public static final void main(String[] args)
+	{
+		int nrSequences = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NR_SEQUENCES;
+		int nrWords = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NR_WORDS;
+		
+		String[] vocabulary = createVocabulary(nrWords);
+		
+		// The words are shared by all trees, so they are not part of the memory of any of them.
+		WordTable words = new WordTable();
+		for(String word : vocabulary)
+			words.add(word);
+		
+		StringTree[] trees = new StringTree[3];
+		String[] names = new String[] {"int-array tree", "minimised", "LOUDS"};
+		for(int i = 0; i < trees.length; i++)
+		{
+			long usedBefore = usedMemory();
+			trees[i] = createTree(words, vocabulary, nrSequences);
+			if(i == 1)
+				trees[i].minimise();
+			else if(i == 2)
+				trees[i].encodeSuccinctly();
+			long usedAfter = usedMemory();
+			
+			System.out.println(names[i] + ": " + (usedAfter - usedBefore) / (1024 * 1024) + " MB");
+		}
+		
+		final TokenisedSentence[] sentences = createQueries(vocabulary);
+		
+		// All forms must find the same matches.
+		for(TokenisedSentence sentence : sentences)
+		{
+			for(int i = 0; i < sentence.getNrTokens(); i++)
+			{
+				int match = trees[0].getLongestMatch(sentence, i);
+				BenchmarkSupport.check(trees[1].getLongestMatch(sentence, i) == match
+					&& trees[2].getLongestMatch(sentence, i) == match,
+					"Different matches at token " + i + " of: " + sentence);
+			}
+		}
+		
+		long nrLookups = (long)NR_QUERY_SENTENCES * WORDS_PER_QUERY_SENTENCE;
+		for(int i = 0; i < trees.length; i++)
+		{
+			final StringTree tree = trees[i];
+			long nanos = BenchmarkSupport.bestOf(NR_RUNS, new Runnable()
+			{
+				public void run()
+				{
+					for(TokenisedSentence sentence : sentences)
+					{
+						for(int j = 0; j < sentence.getNrTokens(); j++)
+							checksum += tree.getLongestMatch(sentence, j);
+					}
+				}
+			});
+			System.out.println(names[i] + ": " + nanos / nrLookups + " ns per longest match");
+		}
+		System.out.println("(checksum " + checksum + ")");
+	}
+	
+	// Distinct words of two to seven Arabic letters.
+	private static final String[] createVocabulary(int nrWords)
+	{
+		Random random = new Random(LEXICON_SEED);
+		WordTable distinctWords = new WordTable();
+		String[] vocabulary = new String[nrWords];
+		char[] chars = new char[7];
+		int length;
+		int i = 0;
+		while(i < nrWords)
+		{
+			length = 2 + random.nextInt(6);
+			for(int j = 0; j < length; j++)
+				chars[j] = (char)('ا' + random.nextInt(26));
+			
+			String word = new String(chars, 0, length);
+			if(distinctWords.find(word) == null)
+			{
+				distinctWords.add(word);
+				vocabulary[i++] = word;
+			}
+		}
+		return vocabulary;
+	}
+	
+	// The lower the index, the more common the word.
+	private static final String pickWord(Random random, String[] vocabulary)
+	{
+		double r = random.nextDouble();
+		return vocabulary[(int)(r * r * r * vocabulary.length)];
+	}
+	
+	private static final StringTree createTree(WordTable words, String[] vocabulary,
+		int nrSequences)
+	{
+		StringTree tree = new StringTree(words);
+		Random random = new Random(LEXICON_SEED);
+		String[] sequence;
+		for(int i = 0; i < nrSequences; i++)
+		{
+			sequence = new String[1 + random.nextInt(MAX_SEQUENCE_LENGTH)];
+			for(int j = 0; j < sequence.length; j++)
+				sequence[j] = pickWord(random, vocabulary);
+			tree.addValidWordSequence(sequence, (byte)(1 + random.nextInt(2)));
+		}
+		return tree;
+	}
+	
+	private static final TokenisedSentence[] createQueries(String[] vocabulary)
+	{
+		Random random = new Random(QUERY_SEED);
+		TokenisedSentence[] sentences = new TokenisedSentence[NR_QUERY_SENTENCES];
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < sentences.length; i++)
+		{
+			sb.setLength(0);
+			for(int j = 0; j < WORDS_PER_QUERY_SENTENCE; j++)
+			{
+				if(j > 0)
+					sb.append(' ');
+				sb.append(pickWord(random, vocabulary));
+			}
+			
+			sentences[i] = new TokenisedSentence();
+			char[] buffer = sentences[i].getCharBuffer(sb.length());
+			sb.getChars(0, sb.length(), buffer, 0);
+			sentences[i].tokenise(sb.length());
+		}
+		return sentences;
+	}
+	
+	private static final long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}